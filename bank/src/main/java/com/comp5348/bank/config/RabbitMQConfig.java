@@ -1,7 +1,11 @@
 package com.comp5348.bank.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,6 +21,8 @@ public class RabbitMQConfig {
     public static final String BANK_STATUS_EXCHANGE = "bank.status.exchange";
     public static final String RK_BANK_STATUS = "bank.status";
 
+    public static final String PAYMENT_BATCH_LISTENER_FACTORY = "paymentBatchListenerFactory";
+
     @Bean
     public TopicExchange bankExchange() {
         return ExchangeBuilder.topicExchange(BANK_EXCHANGE).durable(true).build();
@@ -47,4 +53,26 @@ public class RabbitMQConfig {
     public Jackson2JsonMessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
     }
-}
\ No newline at end of file
+
+    /**
+     * Delivers payment requests in batches of up to batch-size, waiting at most batch-window-ms
+     * for a batch to fill, so a lone request is never held back longer than the window.
+     */
+    @Bean(name = PAYMENT_BATCH_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory paymentBatchListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${bank.payments.batch-size:50}") int batchSize,
+            @Value("${bank.payments.batch-window-ms:20}") long batchWindowMs,
+            @Value("${bank.payments.consumers:1}") int consumers) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(batchWindowMs);
+        factory.setPrefetchCount(Math.max(batchSize * 2, 250));
+        factory.setConcurrentConsumers(consumers);
+        return factory;
+    }
+}
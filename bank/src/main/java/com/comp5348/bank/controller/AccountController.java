@@ -1,14 +1,18 @@
 package com.comp5348.bank.controller;
 
+import com.comp5348.bank.dto.AccountBalanceDTO;
 import com.comp5348.bank.dto.AccountCreationRequestDTO;
+import com.comp5348.bank.dto.StatementPageDTO;
 import com.comp5348.bank.model.AccountEntity;
+import com.comp5348.bank.service.AccountBucketService;
 import com.comp5348.bank.service.BankingService;
+import com.comp5348.bank.service.StatementService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/accounts")
@@ -16,10 +20,42 @@ import org.springframework.web.bind.annotation.RestController;
 public class AccountController {
 
     private final BankingService bankingService;
+    private final AccountBucketService accountBucketService;
+    private final StatementService statementService;
 
     @PostMapping
     public ResponseEntity<AccountEntity> createAccount(@RequestBody AccountCreationRequestDTO request) {
         AccountEntity newAccount = bankingService.createAccount(request.getOwnerName());
         return ResponseEntity.ok(newAccount);
     }
+
+    /**
+     * Current balance, buckets included; served from the read cache.
+     */
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<AccountBalanceDTO> getBalance(@PathVariable Long accountId) {
+        return ResponseEntity.ok(new AccountBalanceDTO(accountId, bankingService.getBalance(accountId)));
+    }
+
+    /**
+     * Marks an account as high-traffic: credits are spread over the given number of buckets.
+     */
+    @PutMapping("/{accountId}/buckets")
+    public ResponseEntity<AccountEntity> stripeAccount(@PathVariable Long accountId, @RequestParam int count) {
+        return ResponseEntity.ok(accountBucketService.stripe(accountId, count));
+    }
+
+    /**
+     * Ledger entries of an account, oldest first, one keyset page at a time.
+     * Pass the returned nextCursor to get the following page, with the same range.
+     */
+    @GetMapping("/{accountId}/statement")
+    public ResponseEntity<StatementPageDTO> getStatement(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(statementService.getStatement(accountId, from, to, cursor, size));
+    }
 }
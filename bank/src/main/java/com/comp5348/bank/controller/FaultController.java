@@ -1,5 +1,7 @@
 package com.comp5348.bank.controller;
 
+import com.comp5348.bank.dto.FaultProfileDTO;
+import com.comp5348.bank.dto.OperationFaultDTO;
 import com.comp5348.bank.service.FaultInjectionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,7 +34,38 @@ public class FaultController {
     }
 
     @GetMapping("/status")
-    public ResponseEntity<Map<String, Boolean>> getFaultStatus() {
-        return ResponseEntity.ok(Map.of("enabled", faultInjectionService.isFaultEnabled()));
+    public ResponseEntity<Map<String, Object>> getFaultStatus() {
+        return ResponseEntity.ok(faultInjectionService.getStatus());
+    }
+
+    /**
+     * Sets the latency distribution and failure probability of one operation (CHARGE, REFUND, ACCOUNT_CREATION).
+     */
+    @PutMapping("/operations/{operation}")
+    public ResponseEntity<Map<String, Object>> setOperationFault(@PathVariable String operation,
+                                                                 @RequestBody OperationFaultDTO fault) {
+        faultInjectionService.setOperationFault(FaultInjectionService.Operation.valueOf(operation.toUpperCase()), fault);
+        return ResponseEntity.ok(faultInjectionService.getStatus());
+    }
+
+    @DeleteMapping("/operations/{operation}")
+    public ResponseEntity<Map<String, Object>> clearOperationFault(@PathVariable String operation) {
+        faultInjectionService.clearOperationFault(FaultInjectionService.Operation.valueOf(operation.toUpperCase()));
+        return ResponseEntity.ok(faultInjectionService.getStatus());
+    }
+
+    /**
+     * Applies a chaos profile, replacing every per-operation fault until it expires.
+     */
+    @PostMapping("/profile")
+    public ResponseEntity<Map<String, Object>> applyProfile(@RequestBody FaultProfileDTO profile) {
+        faultInjectionService.applyProfile(profile);
+        return ResponseEntity.ok(faultInjectionService.getStatus());
+    }
+
+    @DeleteMapping("/profile")
+    public ResponseEntity<Map<String, Object>> clearProfile() {
+        faultInjectionService.clearProfile();
+        return ResponseEntity.ok(faultInjectionService.getStatus());
     }
 }
@@ -0,0 +1,35 @@
+package com.comp5348.bank.controller;
+
+import com.comp5348.bank.dto.ReconciliationReportDTO;
+import com.comp5348.bank.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Starts ledger reconciliation runs and reports on the latest one.
+ */
+@RestController
+@RequestMapping("/api/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final ReconciliationService reconciliationService;
+
+    /**
+     * Starts a run in the background; 409 with the running report if one is already in progress.
+     */
+    @PostMapping("/runs")
+    public ResponseEntity<ReconciliationReportDTO> startRun() {
+        boolean started = reconciliationService.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(reconciliationService.getLatestReport());
+    }
+
+    @GetMapping("/runs/latest")
+    public ResponseEntity<ReconciliationReportDTO> getLatestRun() {
+        ReconciliationReportDTO report = reconciliationService.getLatestReport();
+        return report != null ? ResponseEntity.ok(report) : ResponseEntity.noContent().build();
+    }
+}
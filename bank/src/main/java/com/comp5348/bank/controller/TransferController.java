@@ -0,0 +1,23 @@
+package com.comp5348.bank.controller;
+
+import com.comp5348.bank.dto.TransferResponseDTO;
+import com.comp5348.bank.service.BankingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/transfers")
+@RequiredArgsConstructor
+public class TransferController {
+
+    private final BankingService bankingService;
+
+    /**
+     * Status of a transfer, e.g. for a caller whose payment RPC timed out; served from the read cache.
+     */
+    @GetMapping("/{transferId}")
+    public ResponseEntity<TransferResponseDTO> getTransferStatus(@PathVariable Long transferId) {
+        return ResponseEntity.ok(bankingService.getTransferStatus(transferId));
+    }
+}
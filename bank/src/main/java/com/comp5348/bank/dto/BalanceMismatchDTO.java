@@ -0,0 +1,23 @@
+package com.comp5348.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceMismatchDTO {
+    private Long accountId;
+    /**
+     * Account row plus buckets.
+     */
+    private BigDecimal balance;
+    /**
+     * Opening balance plus every ledger delta, archived months included.
+     */
+    private BigDecimal ledgerBalance;
+    private BigDecimal difference;
+}
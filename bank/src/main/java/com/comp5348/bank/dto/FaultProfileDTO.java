@@ -0,0 +1,17 @@
+package com.comp5348.bank.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A named set of faults per operation (CHARGE, REFUND, ACCOUNT_CREATION),
+ * active for durationSeconds; 0 keeps it until it is cleared.
+ */
+@Data
+public class FaultProfileDTO {
+    private String name;
+    private long durationSeconds;
+    private Map<String, OperationFaultDTO> operations = new LinkedHashMap<>();
+}
@@ -0,0 +1,20 @@
+package com.comp5348.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntryDTO {
+    private Long entryId;
+    private Long transferId;
+    private Integer bucketNo;
+    private BigDecimal delta;
+    private BigDecimal balanceAfter;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.comp5348.bank.dto;
+
+import lombok.Data;
+
+/**
+ * Latency and failure injected into one operation.
+ * FIXED uses fixedMs; UNIFORM draws between minMs and maxMs; LOGNORMAL draws around medianMs
+ * with the given sigma (1.0 puts p99 at about 10x the median) and is capped at maxMs.
+ */
+@Data
+public class OperationFaultDTO {
+    private String distribution = "NONE";
+    private long fixedMs;
+    private long minMs;
+    private long maxMs;
+    private long medianMs;
+    private double sigma = 1.0;
+    private double failureProbability;
+}
@@ -0,0 +1,28 @@
+package com.comp5348.bank.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReconciliationReportDTO {
+    /**
+     * RUNNING, COMPLETED, INCOMPLETE (some ranges failed) or FAILED.
+     */
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long accountsChecked;
+    private long transfersChecked;
+    private long balanceMismatchCount;
+    private long transferMismatchCount;
+    /**
+     * First mismatches found, capped; the counts above are complete.
+     */
+    private List<BalanceMismatchDTO> balanceMismatches = new ArrayList<>();
+    private List<TransferMismatchDTO> transferMismatches = new ArrayList<>();
+    private List<String> failedRanges = new ArrayList<>();
+    private String failure;
+}
@@ -0,0 +1,19 @@
+package com.comp5348.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementPageDTO {
+    private Long accountId;
+    private List<LedgerEntryDTO> entries;
+    /**
+     * Opaque token to pass as ?cursor= for the next page, null on the last page.
+     */
+    private String nextCursor;
+}
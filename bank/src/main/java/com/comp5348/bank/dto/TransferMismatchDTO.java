@@ -0,0 +1,20 @@
+package com.comp5348.bank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferMismatchDTO {
+    private Long transferId;
+    private String status;
+    private BigDecimal amount;
+    private int ledgerEntries;
+    private BigDecimal debited;
+    private BigDecimal credited;
+    private String reason;
+}
@@ -5,22 +5,32 @@ import com.comp5348.bank.dto.TransferRequestDTO;
 import com.comp5348.bank.dto.TransferResponseDTO;
 import com.comp5348.bank.model.TransferEntity;
 import com.comp5348.bank.repository.TransferRepository;
+import com.comp5348.bank.service.AccountShardExecutor;
 import com.comp5348.bank.service.BankingService;
+import com.comp5348.bank.service.FaultInjectionService;
+import com.comp5348.bank.service.IdempotencyFilter;
 import com.comp5348.contracts.PaymentRequest;
 import com.comp5348.contracts.PaymentResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static com.comp5348.bank.config.RabbitMQConfig.*;
 
 /**
- * Consumes payment requests from RabbitMQ (RPC pattern).
+ * Consumes payment requests from RabbitMQ (RPC pattern), in micro-batches.
  */
 @Slf4j
 @Component
@@ -29,49 +39,135 @@ public class BankConsumer {
 
     private final BankingService bankingService;
     private final TransferRepository transferRepository;
+    private final MessageConverter messageConverter;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountShardExecutor shardExecutor;
+    private final IdempotencyFilter idempotencyFilter;
+    private final FaultInjectionService faultInjectionService;
 
-    @RabbitListener(queues = BANK_QUEUE)
-    @SendTo(BANK_REPLY_QUEUE)
-    public PaymentResponse handlePayment(PaymentRequest request) {
-        //  Improved logging format matching spec
-        log.info("[Store → Bank] Received {} request: order={} amount=${}", 
-                request.getType(), request.getOrderId(), request.getAmount());
+    /**
+     * Applies a batch of payment requests with group commit and replies to each RPC caller.
+     * With single-writer routing, the batch is split by owning shard and each slice is
+     * committed on its shard; requests spanning two shards are applied one by one.
+     */
+    @RabbitListener(queues = BANK_QUEUE, containerFactory = PAYMENT_BATCH_LISTENER_FACTORY)
+    public void handlePayments(List<Message> messages) {
+        List<PaymentRequest> requests = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            requests.add((PaymentRequest) messageConverter.fromMessage(message));
+        }
+        log.info("[Store → Bank] Received batch of {} payment requests", requests.size());
 
-        try {
-            if (request.getType() == PaymentRequest.Type.CHARGE) {
-                PaymentResponse response = handleCharge(request);
-            
-                if (response.isSuccess()) {
-                    log.info("[Bank → Store] Payment approved successfully: order={} txnId={}", 
-                            request.getOrderId(), response.getTransactionId());
-                } else {
-                    log.warn("[Bank → Store] Payment failed: order={} reason={}", 
-                            request.getOrderId(), response.getMessage());
+        // Redeliveries of recently applied requests are answered from memory, without a transaction
+        PaymentResponse[] responses = new PaymentResponse[requests.size()];
+        List<Integer> toApply = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            int position = i;
+            idempotencyFilter.recent(idempotencyKey(request)).ifPresentOrElse(
+                    previous -> responses[position] = toResponse(request, previous),
+                    () -> toApply.add(position));
+        }
+
+        if (!toApply.isEmpty()) {
+            List<PaymentRequest> pending = toApply.stream().map(requests::get).toList();
+            List<PaymentResponse> applied = shardExecutor.isEnabled()
+                    ? applySharded(pending)
+                    : applyBatch(pending);
+            for (int i = 0; i < toApply.size(); i++) {
+                responses[toApply.get(i)] = applied.get(i);
+            }
+        }
+
+        // Injected latency delays each reply on its own, as the store would see a slow bank
+        for (int i = 0; i < messages.size(); i++) {
+            MessageProperties properties = messages.get(i).getMessageProperties();
+            PaymentResponse response = responses[i];
+            FaultInjectionService.Operation operation = requests.get(i).getType() == PaymentRequest.Type.REFUND
+                    ? FaultInjectionService.Operation.REFUND
+                    : FaultInjectionService.Operation.CHARGE;
+            faultInjectionService.afterLatency(operation, () -> reply(properties, response));
+        }
+    }
+
+    private List<PaymentResponse> applySharded(List<PaymentRequest> requests) {
+        Map<List<Integer>, List<Integer>> positionsByShards = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            positionsByShards.computeIfAbsent(shardsOf(requests.get(i)), k -> new ArrayList<>()).add(i);
+        }
+
+        PaymentResponse[] responses = new PaymentResponse[requests.size()];
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        positionsByShards.forEach((shards, positions) -> {
+            if (shards.size() <= 1) {
+                List<PaymentRequest> slice = positions.stream().map(requests::get).toList();
+                pending.add(shardExecutor.submit(shards, () -> applyBatch(slice)).thenAccept(applied -> {
+                    for (int i = 0; i < positions.size(); i++) {
+                        responses[positions.get(i)] = applied.get(i);
+                    }
+                }));
+            } else {
+                for (int position : positions) {
+                    pending.add(shardExecutor.submit(shards, () -> handlePayment(requests.get(position)))
+                            .thenAccept(response -> responses[position] = response));
                 }
-            
-                return response;
-            
-            } else if (request.getType() == PaymentRequest.Type.REFUND) {
-                PaymentResponse response = handleRefund(request);
-            
-                if (response.isSuccess()) {
-                    log.info("[Bank → Store] Refund processed successfully: order={} txnId={}", 
-                            request.getOrderId(), response.getTransactionId());
-                } else {
-                    log.warn("[Bank → Store] Refund failed: order={} reason={}", 
-                            request.getOrderId(), response.getMessage());
+            }
+        });
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        return Arrays.asList(responses);
+    }
+
+    private List<Integer> shardsOf(PaymentRequest request) {
+        try {
+            return shardExecutor.shardsFor(Long.parseLong(request.getCustomerAccountId()), request.getStoreAccountId());
+        } catch (NumberFormatException e) {
+            // Rejected by handleCharge/handleRefund anyway, no account to own
+            return List.of();
+        }
+    }
+
+    /**
+     * Applies the requests in one transaction. If anything fails, the transaction is rolled back
+     * and the requests are replayed one by one, each in its own transaction.
+     */
+    private List<PaymentResponse> applyBatch(List<PaymentRequest> requests) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<PaymentResponse> applied = new ArrayList<>(requests.size());
+                for (PaymentRequest request : requests) {
+                    applied.add(process(request));
                 }
-            
-                return response;
-            
-            } else {
-                return new PaymentResponse(
-                        request.getOrderId(), 
-                        false, 
-                        null, 
-                        "Unknown payment type: " + request.getType()
-                );
+                return applied;
+            });
+        } catch (Exception e) {
+            log.warn("[Bank] Batch of {} failed ({}), processing requests individually",
+                    requests.size(), e.getMessage());
+            List<PaymentResponse> responses = new ArrayList<>(requests.size());
+            for (PaymentRequest request : requests) {
+                responses.add(handlePayment(request));
+            }
+            return responses;
+        }
+    }
+
+    /**
+     * Processes a single payment request in its own transaction; failures become a failed response.
+     */
+    public PaymentResponse handlePayment(PaymentRequest request) {
+        try {
+            return process(request);
+        } catch (DataIntegrityViolationException e) {
+            // Same idempotency key already committed, possibly by another instance: answer with the stored transfer
+            var existing = bankingService.findCommitted(idempotencyKey(request));
+            if (existing.isPresent()) {
+                log.info("[Bank] Duplicate {} request for order {} answered from the stored transfer",
+                        request.getType(), request.getOrderId());
+                return toResponse(request, existing.get());
             }
+            log.error("[Bank → Store] Payment processing failed: order={} error={}",
+                    request.getOrderId(), e.getMessage(), e);
+            return new PaymentResponse(request.getOrderId(), false, null, "Payment failed: " + e.getMessage());
         } catch (Exception e) {
             log.error("[Bank → Store] Payment processing failed: order={} error={}", 
                     request.getOrderId(), e.getMessage(), e);
@@ -84,6 +180,58 @@ public class BankConsumer {
         }
     }
 
+    private PaymentResponse process(PaymentRequest request) {
+        //  Improved logging format matching spec
+        log.info("[Store → Bank] Received {} request: order={} amount=${}", 
+                request.getType(), request.getOrderId(), request.getAmount());
+
+        if (request.getType() == PaymentRequest.Type.CHARGE) {
+            PaymentResponse response = handleCharge(request);
+        
+            if (response.isSuccess()) {
+                log.info("[Bank → Store] Payment approved successfully: order={} txnId={}", 
+                        request.getOrderId(), response.getTransactionId());
+            } else {
+                log.warn("[Bank → Store] Payment failed: order={} reason={}", 
+                        request.getOrderId(), response.getMessage());
+            }
+        
+            return response;
+        
+        } else if (request.getType() == PaymentRequest.Type.REFUND) {
+            PaymentResponse response = handleRefund(request);
+        
+            if (response.isSuccess()) {
+                log.info("[Bank → Store] Refund processed successfully: order={} txnId={}", 
+                        request.getOrderId(), response.getTransactionId());
+            } else {
+                log.warn("[Bank → Store] Refund failed: order={} reason={}", 
+                        request.getOrderId(), response.getMessage());
+            }
+        
+            return response;
+        
+        } else {
+            return new PaymentResponse(
+                    request.getOrderId(), 
+                    false, 
+                    null, 
+                    "Unknown payment type: " + request.getType()
+            );
+        }
+    }
+
+    /**
+     * Sends the response where @SendTo would have: the caller's replyTo, else the shared reply queue.
+     */
+    private void reply(MessageProperties requestProperties, PaymentResponse response) {
+        String replyTo = requestProperties.getReplyTo() != null ? requestProperties.getReplyTo() : BANK_REPLY_QUEUE;
+        rabbitTemplate.convertAndSend("", replyTo, response, message -> {
+            message.getMessageProperties().setCorrelationId(requestProperties.getCorrelationId());
+            return message;
+        });
+    }
+
     private PaymentResponse handleCharge(PaymentRequest request) {
         TransferRequestDTO transferRequest = new TransferRequestDTO();
         transferRequest.setFromAccountId(Long.parseLong(request.getCustomerAccountId()));
@@ -91,66 +239,60 @@ public class BankConsumer {
         transferRequest.setAmount(BigDecimal.valueOf(request.getAmount()));
         transferRequest.setOrderId(request.getOrderId());
 
-        String idempotencyKey = "charge-" + request.getOrderId() + "-" + UUID.randomUUID();
-
-        TransferResponseDTO transferResult = bankingService.createTransfer(transferRequest, idempotencyKey);
-
-    boolean success = "SUCCEEDED".equals(transferResult.getStatus());
-    
-    // Generate spec-compliant transaction ID
-    String transactionId = success 
-            ? "TXN-" + System.currentTimeMillis() + "-" + transferResult.getTransferId()
-            : null;
-    
-    String message = success 
-            ? "Payment approved successfully" 
-            : "Payment failed: " + transferResult.getFailureReason();
-
-    log.info("[Bank] Charge {} - orderId={}, txnId={}", 
-            success ? "succeeded" : "failed", 
-            request.getOrderId(), 
-            transactionId);
-
-    return new PaymentResponse(
-            request.getOrderId(), 
-            success, 
-            transactionId,  // Now returns "TXN-1730182333123-456"
-            message
-    );
-}
+        TransferResponseDTO transferResult = bankingService.createTransfer(transferRequest, idempotencyKey(request));
+        return toResponse(request, transferResult);
+    }
+
+    private PaymentResponse handleRefund(PaymentRequest request) {
+        String idempotencyKey = idempotencyKey(request);
+        TransferResponseDTO transferResult = bankingService.findExisting(idempotencyKey).orElseGet(() -> {
+            TransferEntity originalTransfer = transferRepository
+                    .findFirstByOrderIdAndTypeOrderByIdDesc(request.getOrderId(), TransferEntity.TransferType.CHARGE)
+                    .orElseThrow(() -> new IllegalArgumentException("Original transfer not found for order " + request.getOrderId()));
+
+            RefundRequestDTO refundRequest = new RefundRequestDTO();
+            refundRequest.setOriginalTransferId(originalTransfer.getId());
+            refundRequest.setOrderId(request.getOrderId());
+            return bankingService.createRefund(refundRequest, idempotencyKey);
+        });
+        return toResponse(request, transferResult);
+    }
 
-private PaymentResponse handleRefund(PaymentRequest request) {
-    TransferEntity originalTransfer = transferRepository.findByOrderId(request.getOrderId())
-            .orElseThrow(() -> new IllegalArgumentException("Original transfer not found for order " + request.getOrderId()));
-
-    RefundRequestDTO refundRequest = new RefundRequestDTO();
-    refundRequest.setOriginalTransferId(originalTransfer.getId());
-    refundRequest.setOrderId(request.getOrderId());
-
-    String idempotencyKey = "refund-" + request.getOrderId() + "-" + UUID.randomUUID();
-
-    TransferResponseDTO transferResult = bankingService.createRefund(refundRequest, idempotencyKey);
-
-    boolean success = "SUCCEEDED".equals(transferResult.getStatus());
-    
-    // Generate spec-compliant transaction ID
-    String transactionId = success 
-            ? "TXN-" + System.currentTimeMillis() + "-" + transferResult.getTransferId()
-            : null;
-    
-    String message = success 
-            ? "Refund processed successfully" 
-            : "Refund failed: " + transferResult.getFailureReason();
-
-    log.info("[Bank] Refund {} - orderId={}, txnId={}", 
-            success ? "succeeded" : "failed", 
-            request.getOrderId(), 
-            transactionId);
-
-    return new PaymentResponse(
-            request.getOrderId(), 
-            success, 
-            transactionId,  // Now returns "TXN-1730182333123-789"
-            message
-    );
-}}
+    /**
+     * Same request, same key: a broker redelivery or a replayed batch maps onto the transfer
+     * that was already made. Only successful transfers are bound to the key, so after a rejection
+     * (insufficient funds) a retry with the same attempt is processed again.
+     */
+    private static String idempotencyKey(PaymentRequest request) {
+        String type = request.getType() == PaymentRequest.Type.REFUND ? "refund" : "charge";
+        return type + "-" + request.getOrderId() + "-" + Math.max(1, request.getAttempt());
+    }
+
+    private PaymentResponse toResponse(PaymentRequest request, TransferResponseDTO transferResult) {
+        boolean refund = request.getType() == PaymentRequest.Type.REFUND;
+        boolean success = "SUCCEEDED".equals(transferResult.getStatus());
+
+        // Spec-compliant transaction ID, derived from the transfer so a repeated reply carries the same one
+        String transactionId = success
+                ? "TXN-" + transferResult.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        + "-" + transferResult.getTransferId()
+                : null;
+
+        String message = success
+                ? (refund ? "Refund processed successfully" : "Payment approved successfully")
+                : (refund ? "Refund failed: " : "Payment failed: ") + transferResult.getFailureReason();
+
+        log.info("[Bank] {} {} - orderId={}, txnId={}",
+                refund ? "Refund" : "Charge",
+                success ? "succeeded" : "failed",
+                request.getOrderId(),
+                transactionId);
+
+        return new PaymentResponse(
+                request.getOrderId(),
+                success,
+                transactionId,  // e.g. "TXN-1730182333123-456"
+                message
+        );
+    }
+}
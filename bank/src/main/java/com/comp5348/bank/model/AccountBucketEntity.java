@@ -0,0 +1,40 @@
+package com.comp5348.bank.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * One stripe of a bucketed account's balance.
+ * Credits go to any free bucket; debits fold all buckets back into the account row first.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "account_bucket", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_bucket", columnNames = {"account_id", "bucket_no"})
+})
+public class AccountBucketEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private Integer bucketNo;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public AccountBucketEntity(Long accountId, Integer bucketNo) {
+        this.accountId = accountId;
+        this.bucketNo = bucketNo;
+    }
+}
@@ -32,4 +32,20 @@ public class AccountEntity {
 
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
+
+    /**
+     * Balance the account was opened with; every later change is in the ledger.
+     */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal openingBalance = BigDecimal.ZERO;
+
+    /**
+     * Number of balance buckets; 1 means the whole balance lives on this row.
+     */
+    @Column(nullable = false)
+    private int bucketCount = 1;
+
+    public boolean isBucketed() {
+        return bucketCount > 1;
+    }
 }
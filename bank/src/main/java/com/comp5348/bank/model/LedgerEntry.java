@@ -19,12 +19,13 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "ledger_entry", indexes = {
         @Index(name = "idx_transfer_id", columnList = "transferId"),
-        @Index(name = "idx_account_id", columnList = "accountId")
+        @Index(name = "idx_ledger_account_id_id", columnList = "accountId, id")
 })
 public class LedgerEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entry_seq")
+    @SequenceGenerator(name = "ledger_entry_seq", sequenceName = "ledger_entry_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -33,6 +34,13 @@ public class LedgerEntry {
     @Column(nullable = false)
     private Long accountId;
 
+    /**
+     * Bucket the entry was applied to, null for the account row.
+     * balanceAfter is then the balance of that bucket.
+     */
+    @Column
+    private Integer bucketNo;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal delta;
 
@@ -14,13 +14,12 @@ import java.time.LocalDateTime;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "outbox_event", indexes = {
-        @Index(name = "idx_processed", columnList = "processedAt")
-})
+@Table(name = "outbox_event")
 public class OutboxEventEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
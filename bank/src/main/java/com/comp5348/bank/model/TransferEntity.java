@@ -17,12 +17,14 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "transfer", indexes = {
         @Index(name = "idx_idempotency_key", columnList = "idempotencyKey"),
-        @Index(name = "idx_correlation_id", columnList = "correlationId")
+        @Index(name = "idx_correlation_id", columnList = "correlationId"),
+        @Index(name = "idx_transfer_from_account", columnList = "from_account_id, createdAt")
 })
 public class TransferEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_seq")
+    @SequenceGenerator(name = "transfer_seq", sequenceName = "transfer_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true)
@@ -0,0 +1,59 @@
+package com.comp5348.bank.repository;
+
+import com.comp5348.bank.model.AccountBucketEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AccountBucketRepository extends JpaRepository<AccountBucketEntity, Long> {
+
+    /**
+     * Credits a random bucket that no other transaction holds; empty if all buckets are locked.
+     * The native-spaces hint keeps Hibernate from flushing unrelated pending inserts first,
+     * so ledger and transfer writes of a payment batch stay in one JDBC batch.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_bucket"))
+    @Query(value = "UPDATE account_bucket SET balance = balance + :amount " +
+            "WHERE id = (SELECT id FROM account_bucket WHERE account_id = :accountId " +
+            "            ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING bucket_no AS bucketNo, balance", nativeQuery = true)
+    Optional<BucketBalance> creditFreeBucket(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Credits the given bucket, waiting for its row lock if necessary.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "account_bucket"))
+    @Query(value = "UPDATE account_bucket SET balance = balance + :amount " +
+            "WHERE account_id = :accountId AND bucket_no = :bucketNo " +
+            "RETURNING bucket_no AS bucketNo, balance", nativeQuery = true)
+    Optional<BucketBalance> creditBucket(@Param("accountId") Long accountId, @Param("bucketNo") int bucketNo,
+                                         @Param("amount") BigDecimal amount);
+
+    /**
+     * Locks every bucket of the account, in bucket order so concurrent folds cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<AccountBucketEntity> findByAccountIdOrderByBucketNo(Long accountId);
+
+    @Query("SELECT COALESCE(SUM(b.balance), 0) FROM AccountBucketEntity b WHERE b.accountId = :accountId")
+    BigDecimal sumBalances(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(MAX(b.bucketNo), -1) FROM AccountBucketEntity b WHERE b.accountId = :accountId")
+    int findMaxBucketNo(@Param("accountId") Long accountId);
+
+    interface BucketBalance {
+        Integer getBucketNo();
+        BigDecimal getBalance();
+    }
+}
@@ -2,8 +2,19 @@ package com.comp5348.bank.repository;
 
 import com.comp5348.bank.model.AccountEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
+
+    @Query("SELECT a.id FROM AccountEntity a WHERE a.bucketCount > 1")
+    List<Long> findBucketedAccountIds();
+
+    @Query("SELECT a.version FROM AccountEntity a WHERE a.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Long id);
 }
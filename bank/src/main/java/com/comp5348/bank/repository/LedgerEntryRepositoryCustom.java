@@ -0,0 +1,16 @@
+package com.comp5348.bank.repository;
+
+import com.comp5348.bank.dto.LedgerEntryDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepositoryCustom {
+
+    /**
+     * Oldest-first page of an account's ledger entries, keyset on (account_id, id):
+     * only entries with an id above afterId. from is inclusive, to exclusive.
+     */
+    List<LedgerEntryDTO> findStatementPage(Long accountId, LocalDateTime from, LocalDateTime to,
+                                           Long afterId, int limit);
+}
@@ -0,0 +1,58 @@
+package com.comp5348.bank.repository;
+
+import com.comp5348.bank.dto.LedgerEntryDTO;
+import com.comp5348.bank.model.LedgerEntry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement pages projected straight into DTOs. The predicates are only added when set, so the
+ * planner sees literal bounds on created_at and can skip the monthly partitions outside the range.
+ */
+public class LedgerEntryRepositoryImpl implements LedgerEntryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LedgerEntryDTO> findStatementPage(Long accountId, LocalDateTime from, LocalDateTime to,
+                                                  Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LedgerEntryDTO> query = cb.createQuery(LedgerEntryDTO.class);
+        Root<LedgerEntry> entry = query.from(LedgerEntry.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(entry.get("accountId"), accountId));
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(entry.get("createdAt"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(entry.get("createdAt"), to));
+        }
+        if (afterId != null) {
+            predicates.add(cb.greaterThan(entry.get("id"), afterId));
+        }
+
+        query.select(cb.construct(LedgerEntryDTO.class,
+                        entry.get("id"),
+                        entry.get("transferId"),
+                        entry.get("bucketNo"),
+                        entry.get("delta"),
+                        entry.get("balanceAfter"),
+                        entry.get("createdAt")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(entry.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -2,11 +2,32 @@ package com.comp5348.bank.repository;
 
 import com.comp5348.bank.model.OutboxEventEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
-    List<OutboxEventEntity> findByProcessedAtIsNullOrderByCreatedAtAsc();
+
+    /**
+     * Claims the oldest unprocessed events; rows claimed by another publisher are skipped.
+     */
+    @Query(value = "SELECT * FROM outbox_event WHERE processed_at IS NULL " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEventEntity> claimUnprocessed(@Param("limit") int limit);
+
+    /**
+     * The createdAt lower bound lets PostgreSQL skip the partitions older than the batch.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.processedAt = :processedAt " +
+            "WHERE e.id IN :ids AND e.createdAt >= :createdSince")
+    int markProcessed(@Param("ids") Collection<Long> ids,
+                      @Param("createdSince") LocalDateTime createdSince,
+                      @Param("processedAt") LocalDateTime processedAt);
 }
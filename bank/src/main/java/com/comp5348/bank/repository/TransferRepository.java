@@ -1,13 +1,25 @@
 package com.comp5348.bank.repository;
 
 import com.comp5348.bank.model.TransferEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransferRepository extends JpaRepository<TransferEntity, Long> {
     Optional<TransferEntity> findByIdempotencyKey(String idempotencyKey);
     Optional<TransferEntity> findByOrderId(Long orderId);
+    Optional<TransferEntity> findFirstByOrderIdAndTypeOrderByIdDesc(Long orderId, TransferEntity.TransferType type);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.idempotencyKey FROM TransferEntity t WHERE t.createdAt >= :since AND t.idempotencyKey IS NOT NULL")
+    Stream<String> streamIdempotencyKeysSince(@Param("since") LocalDateTime since);
 }
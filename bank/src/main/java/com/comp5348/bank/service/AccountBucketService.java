@@ -0,0 +1,105 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.model.AccountBucketEntity;
+import com.comp5348.bank.model.AccountEntity;
+import com.comp5348.bank.repository.AccountBucketRepository;
+import com.comp5348.bank.repository.AccountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balance striping for hot accounts such as the store account.
+ * Credits land on one of N bucket rows instead of the versioned account row, so concurrent
+ * charges only contend when they pick the same bucket. The logical balance is the account
+ * row plus all of its buckets.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountBucketService {
+
+    private final AccountBucketRepository accountBucketRepository;
+    private final AccountRepository accountRepository;
+    private final ReadCache readCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Adds the amount to a free bucket of the account, or to a random one if all are busy.
+     *
+     * @return the bucket credited and its balance afterwards
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public AccountBucketRepository.BucketBalance credit(AccountEntity account, BigDecimal amount) {
+        return accountBucketRepository.creditFreeBucket(account.getId(), amount)
+                .or(() -> accountBucketRepository.creditBucket(account.getId(),
+                        ThreadLocalRandom.current().nextInt(account.getBucketCount()), amount))
+                .orElseThrow(() -> new IllegalStateException("No balance buckets for account " + account.getId()));
+    }
+
+    /**
+     * Moves every bucket balance into the account row so the row holds the full balance.
+     * Needed before a debit, and must run before the account is modified in the transaction;
+     * the logical balance does not change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void fold(AccountEntity account) {
+        // A bucketed account has no owning shard, so debits from different shards (refunds paid by
+        // the store) meet here. Lock the row and re-read it, so the fold never works on a stale
+        // version and concurrent debits queue instead of failing their optimistic lock.
+        entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        List<AccountBucketEntity> buckets = accountBucketRepository.findByAccountIdOrderByBucketNo(account.getId());
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBucketEntity bucket : buckets) {
+            total = total.add(bucket.getBalance());
+            bucket.setBalance(BigDecimal.ZERO);
+        }
+        if (total.signum() != 0) {
+            account.setBalance(account.getBalance().add(total));
+            log.debug("[Bank] Folded {} from {} buckets into account {}", total, buckets.size(), account.getId());
+        }
+    }
+
+    /**
+     * Logical balance: the account row plus its buckets.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceOf(AccountEntity account) {
+        if (!account.isBucketed()) {
+            return account.getBalance();
+        }
+        return account.getBalance().add(accountBucketRepository.sumBalances(account.getId()));
+    }
+
+    /**
+     * Spreads future credits to the account over the given number of buckets.
+     * Buckets are only ever added, existing bucket balances stay where they are.
+     */
+    @Transactional
+    public AccountEntity stripe(Long accountId, int bucketCount) {
+        AccountEntity account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        if (bucketCount < account.getBucketCount()) {
+            throw new IllegalArgumentException("Account " + accountId + " already has "
+                    + account.getBucketCount() + " buckets");
+        }
+        for (int n = accountBucketRepository.findMaxBucketNo(accountId) + 1; n < bucketCount; n++) {
+            accountBucketRepository.save(new AccountBucketEntity(accountId, n));
+        }
+        account.setBucketCount(bucketCount);
+        readCache.evictAfterCommit(accountId);
+        log.info("[Bank] Account {} now spreads credits over {} buckets", accountId, bucketCount);
+        return accountRepository.save(account);
+    }
+}
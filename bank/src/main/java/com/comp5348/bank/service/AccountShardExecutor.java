@@ -0,0 +1,116 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer routing for transfers.
+ * Every account is owned by one of N serial executors (chosen by account id hash), and all work
+ * touching an account runs on its owner, so two transfers never race on the same account row
+ * and never fail on its optimistic lock. Work spanning two shards runs on the lower shard, which
+ * hands off to the higher one and waits; waits only ever point upwards, so they cannot deadlock.
+ * Bucketed accounts have no owner: their credits are spread over bucket rows instead, and
+ * their debits lock the account row (see AccountBucketService.fold).
+ */
+@Slf4j
+@Service
+public class AccountShardExecutor implements DisposableBean {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final AccountRepository accountRepository;
+    private final boolean enabled;
+    private final ExecutorService[] shards;
+    private volatile Set<Long> bucketedAccounts = Set.of();
+
+    public AccountShardExecutor(AccountRepository accountRepository,
+                                @Value("${bank.transfers.single-writer:true}") boolean enabled,
+                                @Value("${bank.transfers.shards:8}") int shardCount) {
+        this.accountRepository = accountRepository;
+        this.enabled = enabled;
+        this.shards = new ExecutorService[enabled ? shardCount : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("bank-shard-" + i).daemon().factory());
+        }
+        log.info("[Bank] Single-writer transfers {}", enabled ? "enabled with " + shardCount + " shards" : "disabled");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Shards owning the given accounts, ascending and without duplicates.
+     */
+    public List<Integer> shardsFor(Long... accountIds) {
+        TreeSet<Integer> owners = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            if (accountId != null && !bucketedAccounts.contains(accountId)) {
+                owners.add(Math.floorMod(Long.hashCode(accountId), shards.length));
+            }
+        }
+        return List.copyOf(owners);
+    }
+
+    /**
+     * Runs the work while holding every given shard, acquired in ascending order.
+     * With no shards the work runs on the calling thread.
+     */
+    public <T> CompletableFuture<T> submit(List<Integer> owners, Supplier<T> work) {
+        if (owners.isEmpty()) {
+            try {
+                return CompletableFuture.completedFuture(work.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return runFrom(owners, 0, work);
+    }
+
+    private <T> CompletableFuture<T> runFrom(List<Integer> owners, int index, Supplier<T> work) {
+        int shard = owners.get(index);
+        Supplier<T> step = (index == owners.size() - 1)
+                ? work
+                : () -> runFrom(owners, index + 1, work).join();
+        if (Integer.valueOf(shard).equals(CURRENT_SHARD.get())) {
+            return CompletableFuture.completedFuture(step.get());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            CURRENT_SHARD.set(shard);
+            try {
+                return step.get();
+            } finally {
+                CURRENT_SHARD.remove();
+            }
+        }, shards[shard]);
+    }
+
+    /**
+     * Reloads which accounts are bucketed. A stale view only routes a newly striped account
+     * through its shard a little longer, which is slower but still correct.
+     */
+    @Scheduled(fixedDelayString = "${bank.transfers.bucketed-refresh-ms:60000}")
+    public void refreshBucketedAccounts() {
+        if (enabled) {
+            bucketedAccounts = Set.copyOf(accountRepository.findBucketedAccountIds());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
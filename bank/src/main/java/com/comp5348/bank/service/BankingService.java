@@ -15,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -30,6 +31,10 @@ public class BankingService {
     private final LedgerEntryRepository ledgerEntryRepository;
     private final OutboxEventRepository outboxEventRepository;
     private final FaultInjectionService faultInjectionService;
+    private final AccountBucketService accountBucketService;
+    private final IdempotencyFilter idempotencyFilter;
+    private final OutboxEventPublisherService outboxEventPublisher;
+    private final ReadCache readCache;
 
     /**
      * Creates a new transfer with idempotency support.
@@ -40,22 +45,25 @@ public class BankingService {
      */
     @Transactional
     public TransferResponseDTO createTransfer(TransferRequestDTO request, String idempotencyKey) {
+        return transfer(request, idempotencyKey, FaultInjectionService.Operation.CHARGE);
+    }
+
+    private TransferResponseDTO transfer(TransferRequestDTO request, String idempotencyKey,
+                                         FaultInjectionService.Operation operation) {
         String correlationId = UUID.randomUUID().toString();
         log.info("[Bank] createTransfer - correlationId={}, orderId={}, idempotencyKey={}, amount={}",
                 correlationId, request.getOrderId(), idempotencyKey, request.getAmount());
 
         // Check idempotency
-        if (idempotencyKey != null) {
-            var existing = transferRepository.findByIdempotencyKey(idempotencyKey);
-            if (existing.isPresent()) {
-                TransferEntity existingTransfer = existing.get();
-                log.info("[Bank] Idempotent request detected - returning existing transfer {}", existingTransfer.getId());
-                return new TransferResponseDTO(existingTransfer);
-            }
+        var existing = findExisting(idempotencyKey);
+        if (existing.isPresent()) {
+            log.info("[Bank] Idempotent request detected - returning existing transfer {}", existing.get().getTransferId());
+            return existing.get();
         }
 
         // Simulate failure scenarios
         faultInjectionService.maybeInjectFault(correlationId);
+        faultInjectionService.maybeInjectFault(operation, correlationId);
 
         // Validate accounts
         AccountEntity fromAccount = accountRepository.findById(request.getFromAccountId())
@@ -68,11 +76,17 @@ public class BankingService {
             throw new IllegalArgumentException("Amount must be positive");
         }
 
+        // A bucketed payer has part of its balance in buckets, bring it back to the row first
+        if (fromAccount.isBucketed()) {
+            accountBucketService.fold(fromAccount);
+        }
+
         // Check sufficient funds
         if (fromAccount.getBalance().compareTo(request.getAmount()) < 0) {
             TransferEntity failedTransfer = new TransferEntity();
             failedTransfer.setCorrelationId(correlationId);
-            failedTransfer.setIdempotencyKey(idempotencyKey);
+            // Not bound to the idempotency key: a business rejection is not replayed, so a retry
+            // of the same request (e.g. a refund once the payer has funds again) is evaluated afresh
             failedTransfer.setFromAccount(fromAccount);
             failedTransfer.setToAccount(toAccount);
             failedTransfer.setAmount(request.getAmount());
@@ -84,7 +98,10 @@ public class BankingService {
 
             log.warn("[Bank] Transfer failed - insufficient funds: orderId={}, required={}, available={}",
                     request.getOrderId(), request.getAmount(), fromAccount.getBalance());
-            return new TransferResponseDTO(failedTransfer);
+            TransferResponseDTO failed = new TransferResponseDTO(failedTransfer);
+            readCache.putAfterCommit(failed);
+            readCache.putAfterCommit(fromAccount);
+            return failed;
         }
 
         // Create transfer record
@@ -104,12 +121,17 @@ public class BankingService {
             // Debit from account
             fromAccount.setBalance(fromAccount.getBalance().subtract(request.getAmount()));
             accountRepository.save(fromAccount);
-            recordLedgerEntry(transfer.getId(), fromAccount.getId(), request.getAmount().negate(), fromAccount.getBalance());
-
-            // Credit to account
-            toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
-            accountRepository.save(toAccount);
-            recordLedgerEntry(transfer.getId(), toAccount.getId(), request.getAmount(), toAccount.getBalance());
+            recordLedgerEntry(transfer.getId(), fromAccount.getId(), null, request.getAmount().negate(), fromAccount.getBalance());
+
+            // Credit to account; hot accounts are credited through a bucket, leaving the account row untouched
+            if (toAccount.isBucketed()) {
+                var bucket = accountBucketService.credit(toAccount, request.getAmount());
+                recordLedgerEntry(transfer.getId(), toAccount.getId(), bucket.getBucketNo(), request.getAmount(), bucket.getBalance());
+            } else {
+                toAccount.setBalance(toAccount.getBalance().add(request.getAmount()));
+                accountRepository.save(toAccount);
+                recordLedgerEntry(transfer.getId(), toAccount.getId(), null, request.getAmount(), toAccount.getBalance());
+            }
 
             // Mark success
             transfer.setStatus(TransferEntity.TransferStatus.SUCCEEDED);
@@ -133,7 +155,11 @@ public class BankingService {
             throw e;
         }
 
-        return new TransferResponseDTO(transfer);
+        TransferResponseDTO result = new TransferResponseDTO(transfer);
+        idempotencyFilter.rememberAfterCommit(idempotencyKey, result);
+        readCache.putAfterCommit(result);
+        readCache.putAfterCommit(fromAccount, toAccount);
+        return result;
     }
 
     /**
@@ -146,12 +172,10 @@ public class BankingService {
                 correlationId, request.getOriginalTransferId(), request.getOrderId());
 
         // Check idempotency
-        if (idempotencyKey != null) {
-            var existing = transferRepository.findByIdempotencyKey(idempotencyKey);
-            if (existing.isPresent()) {
-                log.info("[Bank] Idempotent refund request - returning existing");
-                return new TransferResponseDTO(existing.get());
-            }
+        var existing = findExisting(idempotencyKey);
+        if (existing.isPresent()) {
+            log.info("[Bank] Idempotent refund request - returning existing");
+            return existing.get();
         }
 
         // Find original transfer
@@ -169,7 +193,7 @@ public class BankingService {
         reverseRequest.setAmount(originalTransfer.getAmount());
         reverseRequest.setOrderId(request.getOrderId());
 
-        TransferResponseDTO result = createTransfer(reverseRequest, idempotencyKey);
+        TransferResponseDTO result = transfer(reverseRequest, idempotencyKey, FaultInjectionService.Operation.REFUND);
 
         // Mark as refund type
         TransferEntity refundTransfer = transferRepository.findById(result.getTransferId()).orElseThrow();
@@ -179,30 +203,67 @@ public class BankingService {
         log.info("[Bank] Refund completed - refundTransferId={}, originalTransferId={}",
                 result.getTransferId(), request.getOriginalTransferId());
 
-        return new TransferResponseDTO(refundTransfer);
+        TransferResponseDTO refund = new TransferResponseDTO(refundTransfer);
+        idempotencyFilter.rememberAfterCommit(idempotencyKey, refund);
+        readCache.putAfterCommit(refund);
+        return refund;
     }
 
     /**
-     * Retrieves transfer status by ID.
+     * Retrieves transfer status by ID, from memory once the transfer has been seen.
      */
-    @Transactional(readOnly = true)
     public TransferResponseDTO getTransferStatus(Long transferId) {
-        TransferEntity transfer = transferRepository.findById(transferId)
-                .orElseThrow(() -> new IllegalArgumentException("Transfer not found: " + transferId));
-        return new TransferResponseDTO(transfer);
+        return readCache.transferStatus(transferId);
+    }
+
+    /**
+     * Looks up an earlier transfer with the same idempotency key: recent results from memory,
+     * the database only if the key may have been committed before.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TransferResponseDTO> findExisting(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        var recent = idempotencyFilter.recent(idempotencyKey);
+        if (recent.isPresent() || !idempotencyFilter.mightHaveSeen(idempotencyKey)) {
+            return recent;
+        }
+        return transferRepository.findByIdempotencyKey(idempotencyKey).map(TransferResponseDTO::new);
+    }
+
+    /**
+     * Looks up a committed transfer by idempotency key in the database, never trusting the filter.
+     * Used after a unique-key violation: the winner may have been committed by another instance,
+     * or too long ago for the filter to remember it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<TransferResponseDTO> findCommitted(String idempotencyKey) {
+        return transferRepository.findByIdempotencyKey(idempotencyKey).map(TransferResponseDTO::new);
+    }
+
+    /**
+     * Current balance of an account, including its buckets if it has any.
+     */
+    public BigDecimal getBalance(Long accountId) {
+        return readCache.balance(accountId);
     }
 
     public AccountEntity createAccount(String ownerName) {
+        faultInjectionService.injectLatency(FaultInjectionService.Operation.ACCOUNT_CREATION);
+        faultInjectionService.maybeInjectFault(FaultInjectionService.Operation.ACCOUNT_CREATION, "account:" + ownerName);
         AccountEntity newAccount = new AccountEntity();
         newAccount.setOwnerName(ownerName);
         newAccount.setBalance(new BigDecimal("10000.00"));
+        newAccount.setOpeningBalance(newAccount.getBalance());
         return accountRepository.save(newAccount);
     }
 
-    private void recordLedgerEntry(Long transferId, Long accountId, BigDecimal delta, BigDecimal balanceAfter) {
+    private void recordLedgerEntry(Long transferId, Long accountId, Integer bucketNo, BigDecimal delta, BigDecimal balanceAfter) {
         LedgerEntry entry = new LedgerEntry();
         entry.setTransferId(transferId);
         entry.setAccountId(accountId);
+        entry.setBucketNo(bucketNo);
         entry.setDelta(delta);
         entry.setBalanceAfter(balanceAfter);
         ledgerEntryRepository.save(entry);
@@ -217,6 +278,7 @@ public class BankingService {
         event.setEventType(eventType);
         event.setPayload(payload);
         outboxEventRepository.save(event);
+        outboxEventPublisher.wakeUpAfterCommit();
         log.debug("[Bank] Outbox event recorded - type={}, aggregateId={}", eventType, aggregateId);
     }
 }
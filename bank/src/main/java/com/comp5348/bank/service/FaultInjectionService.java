@@ -1,23 +1,47 @@
-
 package com.comp5348.bank.service;
 
+import com.comp5348.bank.dto.FaultProfileDTO;
+import com.comp5348.bank.dto.OperationFaultDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for injecting simulated faults to test fault tolerance.
+ * Besides the global failure probability, each operation can get its own latency distribution
+ * and failure probability, either one at a time or as a time-boxed profile that ends by itself.
  */
 @Slf4j
 @Service
-public class FaultInjectionService {
+public class FaultInjectionService implements DisposableBean {
+
+    public enum Operation { CHARGE, REFUND, ACCOUNT_CREATION }
+
+    public enum Distribution { NONE, FIXED, UNIFORM, LOGNORMAL }
 
     private final Random random = new Random();
     //Change faultEnabled = true; to activate this
     private volatile boolean faultEnabled = false;
     private volatile double faultProbability = 0.1; // 10% failure rate
 
+    private volatile ActiveProfile profile = ActiveProfile.NONE;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService delayedReplies = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bank-fault-delay").daemon().factory());
+
+    public FaultInjectionService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
     /**
      * Randomly injects a fault based on configured probability.
      */
@@ -32,6 +56,157 @@ public class FaultInjectionService {
         }
     }
 
+    /**
+     * Injects a fault with the operation's own failure probability, if the active profile sets one.
+     */
+    public void maybeInjectFault(Operation operation, String correlationId) {
+        OperationFaultDTO fault = activeFault(operation);
+        if (fault != null && ThreadLocalRandom.current().nextDouble() < fault.getFailureProbability()) {
+            log.warn("[Bank] Simulating {} failure - correlationId={}", operation, correlationId);
+            throw new RuntimeException("Simulated bank " + operation.name().toLowerCase() + " failure");
+        }
+    }
+
+    /**
+     * Blocks the calling thread for the operation's injected latency, if any.
+     */
+    public void injectLatency(Operation operation) {
+        long delayMs = sampleLatencyMs(operation);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs the action after the operation's injected latency without blocking the caller.
+     * Used for RPC replies: sleeping inside a payment micro-batch would add every request's delay
+     * to all the others in the batch, and the store would no longer see the configured distribution.
+     */
+    public void afterLatency(Operation operation, Runnable action) {
+        long delayMs = sampleLatencyMs(operation);
+        if (delayMs <= 0) {
+            action.run();
+            return;
+        }
+        delayedReplies.schedule(() -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("[Bank] Delayed {} action failed: {}", operation, e.getMessage());
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long sampleLatencyMs(Operation operation) {
+        OperationFaultDTO fault = activeFault(operation);
+        if (fault == null) {
+            return 0;
+        }
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long delayMs = switch (Distribution.valueOf(fault.getDistribution())) {
+            case NONE -> 0;
+            case FIXED -> fault.getFixedMs();
+            case UNIFORM -> fault.getMinMs() + (long) (rnd.nextDouble() * (fault.getMaxMs() - fault.getMinMs()));
+            case LOGNORMAL -> Math.min(fault.getMaxMs(),
+                    Math.round(fault.getMedianMs() * Math.exp(fault.getSigma() * rnd.nextGaussian())));
+        };
+        if (delayMs > 0) {
+            Timer.builder("bank.faults.injected.latency")
+                    .tag("operation", operation.name())
+                    .description("Latency injected by the active fault profile")
+                    .register(registry)
+                    .record(delayMs, TimeUnit.MILLISECONDS);
+        }
+        return delayMs;
+    }
+
+    private OperationFaultDTO activeFault(Operation operation) {
+        ActiveProfile current = profile;
+        if (current.isExpired()) {
+            clearProfile(current);
+            return null;
+        }
+        return current.operations().get(operation);
+    }
+
+    /**
+     * Sets the fault of one operation in the active profile, keeping its expiry.
+     */
+    public synchronized void setOperationFault(Operation operation, OperationFaultDTO fault) {
+        validate(operation, fault);
+        // An expired profile is not extended by a change to one of its operations
+        ActiveProfile base = profile.isExpired() ? ActiveProfile.NONE : profile;
+        Map<Operation, OperationFaultDTO> operations = new EnumMap<>(Operation.class);
+        operations.putAll(base.operations());
+        operations.put(operation, fault);
+        profile = new ActiveProfile(base.name(), Collections.unmodifiableMap(operations), base.expiresAt());
+        log.info("[Bank] {} fault set - distribution={}, failureProbability={}",
+                operation, fault.getDistribution(), fault.getFailureProbability());
+    }
+
+    public synchronized void clearOperationFault(Operation operation) {
+        ActiveProfile base = profile.isExpired() ? ActiveProfile.NONE : profile;
+        Map<Operation, OperationFaultDTO> operations = new EnumMap<>(Operation.class);
+        operations.putAll(base.operations());
+        operations.remove(operation);
+        profile = new ActiveProfile(base.name(), Collections.unmodifiableMap(operations), base.expiresAt());
+        log.info("[Bank] {} fault cleared", operation);
+    }
+
+    /**
+     * Replaces every per-operation fault with the profile's, until it expires or is cleared.
+     */
+    public synchronized void applyProfile(FaultProfileDTO request) {
+        Map<Operation, OperationFaultDTO> operations = new EnumMap<>(Operation.class);
+        request.getOperations().forEach((name, fault) -> {
+            Operation operation = Operation.valueOf(name.toUpperCase());
+            validate(operation, fault);
+            operations.put(operation, fault);
+        });
+        Instant expiresAt = request.getDurationSeconds() > 0
+                ? Instant.now().plusSeconds(request.getDurationSeconds())
+                : null;
+        String name = request.getName() != null ? request.getName() : "custom";
+        profile = new ActiveProfile(name, Collections.unmodifiableMap(operations), expiresAt);
+        log.info("[Bank] Fault profile {} applied to {} until {}", name, operations.keySet(),
+                expiresAt != null ? expiresAt : "cleared");
+    }
+
+    public synchronized void clearProfile() {
+        clearProfile(profile);
+    }
+
+    private synchronized void clearProfile(ActiveProfile expected) {
+        if (profile == expected && profile != ActiveProfile.NONE) {
+            log.info("[Bank] Fault profile {} ended", profile.name());
+            profile = ActiveProfile.NONE;
+        }
+    }
+
+    private static void validate(Operation operation, OperationFaultDTO fault) {
+        if (fault.getDistribution() == null) {
+            fault.setDistribution(Distribution.NONE.name());
+        }
+        Distribution distribution = Distribution.valueOf(fault.getDistribution().toUpperCase());
+        fault.setDistribution(distribution.name());
+        if (fault.getFailureProbability() < 0 || fault.getFailureProbability() > 1) {
+            throw new IllegalArgumentException(operation + ": failureProbability must be between 0 and 1");
+        }
+        boolean valid = switch (distribution) {
+            case NONE -> true;
+            case FIXED -> fault.getFixedMs() >= 0;
+            case UNIFORM -> fault.getMinMs() >= 0 && fault.getMaxMs() >= fault.getMinMs();
+            case LOGNORMAL -> fault.getMedianMs() > 0 && fault.getSigma() >= 0 && fault.getMaxMs() >= fault.getMedianMs();
+        };
+        if (!valid) {
+            throw new IllegalArgumentException(operation + ": invalid " + distribution + " latency parameters");
+        }
+    }
+
     public void enableFaults(double probability) {
         this.faultEnabled = true;
         this.faultProbability = probability;
@@ -46,4 +221,28 @@ public class FaultInjectionService {
     public boolean isFaultEnabled() {
         return faultEnabled;
     }
+
+    public Map<String, Object> getStatus() {
+        ActiveProfile current = profile;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", faultEnabled);
+        status.put("probability", faultProbability);
+        status.put("profile", current.name());
+        status.put("expiresAt", current.expiresAt());
+        status.put("operations", current.operations());
+        return status;
+    }
+
+    @Override
+    public void destroy() {
+        delayedReplies.shutdownNow();
+    }
+
+    private record ActiveProfile(String name, Map<Operation, OperationFaultDTO> operations, Instant expiresAt) {
+        static final ActiveProfile NONE = new ActiveProfile(null, Map.of(), null);
+
+        boolean isExpired() {
+            return expiresAt != null && Instant.now().isAfter(expiresAt);
+        }
+    }
 }
@@ -0,0 +1,185 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.dto.TransferResponseDTO;
+import com.comp5348.bank.repository.TransferRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory front for idempotency checks, in front of the unique idempotency_key column.
+ * An LRU of recent results answers redelivered requests without touching the database, and a
+ * Bloom filter of committed keys lets first-time keys skip the lookup entirely. The filter
+ * rotates between two generations so it stays bounded; a key it has forgotten falls through to
+ * the unique constraint, which callers treat as a duplicate.
+ */
+@Slf4j
+@Service
+public class IdempotencyFilter {
+
+    private static final int HASHES = 7;
+
+    private final TransferRepository transferRepository;
+    private final int expectedKeys;
+    private final int bitsPerGeneration;
+    private final long warmUpHours;
+    private final Map<String, TransferResponseDTO> recent;
+
+    private volatile BloomGeneration current;
+    private volatile BloomGeneration previous;
+
+    public IdempotencyFilter(TransferRepository transferRepository,
+                             @Value("${bank.idempotency.expected-keys:1000000}") int expectedKeys,
+                             @Value("${bank.idempotency.recent-results:10000}") int recentResults,
+                             @Value("${bank.idempotency.warm-up-hours:24}") long warmUpHours) {
+        this.transferRepository = transferRepository;
+        this.expectedKeys = expectedKeys;
+        // About 1% false positives at capacity with 7 hashes
+        this.bitsPerGeneration = Math.max(64, expectedKeys * 10);
+        this.warmUpHours = warmUpHours;
+        this.recent = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TransferResponseDTO> eldest) {
+                return size() > recentResults;
+            }
+        };
+        this.current = new BloomGeneration(bitsPerGeneration);
+        this.previous = new BloomGeneration(bitsPerGeneration);
+    }
+
+    /**
+     * Result of a recently committed transfer with this key, if still remembered.
+     */
+    public Optional<TransferResponseDTO> recent(String idempotencyKey) {
+        synchronized (recent) {
+            return Optional.ofNullable(recent.get(idempotencyKey));
+        }
+    }
+
+    /**
+     * False means the key was never committed within the filter's memory, so no lookup is needed.
+     */
+    public boolean mightHaveSeen(String idempotencyKey) {
+        long hash = hash(idempotencyKey);
+        return current.mightContain(hash) || previous.mightContain(hash);
+    }
+
+    /**
+     * Remembers the result once the current transaction commits; a rolled back transfer never existed.
+     */
+    public void rememberAfterCommit(String idempotencyKey, TransferResponseDTO result) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(idempotencyKey, result);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remember(idempotencyKey, result);
+            }
+        });
+    }
+
+    private void remember(String idempotencyKey, TransferResponseDTO result) {
+        addKey(idempotencyKey);
+        synchronized (recent) {
+            recent.put(idempotencyKey, result);
+        }
+    }
+
+    private void addKey(String idempotencyKey) {
+        BloomGeneration generation = current;
+        if (generation.add(hash(idempotencyKey)) >= expectedKeys) {
+            synchronized (this) {
+                if (current == generation) {
+                    previous = generation;
+                    current = new BloomGeneration(bitsPerGeneration);
+                    log.info("[Bank] Idempotency filter rotated after {} keys", expectedKeys);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads keys of recent transfers, so redeliveries right after a restart are still caught.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        AtomicInteger loaded = new AtomicInteger();
+        try (Stream<String> keys = transferRepository.streamIdempotencyKeysSince(
+                LocalDateTime.now().minusHours(warmUpHours))) {
+            keys.forEach(key -> {
+                addKey(key);
+                loaded.incrementAndGet();
+            });
+        }
+        log.info("[Bank] Idempotency filter warmed up with {} keys from the last {} hours", loaded.get(), warmUpHours);
+    }
+
+    // 64-bit FNV-1a, then split into the two hashes of the Kirsch-Mitzenmacher scheme
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class BloomGeneration {
+
+        private final AtomicLongArray words;
+        private final long bits;
+        private final AtomicInteger count = new AtomicInteger();
+
+        BloomGeneration(int bits) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+            this.bits = (long) words.length() * 64;
+        }
+
+        int add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+            }
+            return count.incrementAndGet();
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
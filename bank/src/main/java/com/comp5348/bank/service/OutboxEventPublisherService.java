@@ -2,66 +2,171 @@ package com.comp5348.bank.service;
 
 import com.comp5348.bank.model.OutboxEventEntity;
 import com.comp5348.bank.repository.OutboxEventRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Polls the outbox table and publishes events to RabbitMQ.
- * Ensures at-least-once delivery semantics.
+ * Publishes outbox events to RabbitMQ.
+ * Ensures at-least-once delivery semantics: an event is marked processed only after the broker
+ * has confirmed it. Events are claimed in pages with FOR UPDATE SKIP LOCKED, so several bank
+ * instances can drain the same table without publishing an event twice.
+ * A commit that records events wakes the publisher immediately; the poll only picks up
+ * events whose wake-up was missed (another instance, a restart, a failed batch).
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class OutboxEventPublisherService {
+public class OutboxEventPublisherService implements DisposableBean {
+
+    private static final String BANK_STATUS_EXCHANGE = "bank.status.exchange";
+    private static final String BANK_STATUS_ROUTING_KEY = "bank.status";
 
     private final OutboxEventRepository outboxEventRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
 
-    private static final String BANK_STATUS_EXCHANGE = "bank.status.exchange";
-    private static final String BANK_STATUS_ROUTING_KEY = "bank.status";
+    private final ExecutorService wakeUpExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("bank-outbox").daemon().factory());
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public OutboxEventPublisherService(OutboxEventRepository outboxEventRepository,
+                                       RabbitTemplate rabbitTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${bank.outbox.batch-size:200}") int batchSize,
+                                       @Value("${bank.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    /**
+     * Schedules a drain once the current transaction commits.
+     * Wake-ups arriving while a drain is queued are coalesced into it.
+     */
+    public void wakeUpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    private void wakeUp() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            wakeUpExecutor.execute(() -> {
+                // Cleared first, so events committed during this drain schedule another one
+                drainScheduled.set(false);
+                publishPendingEvents();
+            });
+        }
+    }
 
     /**
-     * Runs every 5 seconds to process unprocessed outbox events.
+     * Safety-net poll; drains every page of pending events.
      */
-    @Scheduled(fixedDelay = 5000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${bank.outbox.poll-interval-ms:1000}")
     public void publishPendingEvents() {
-        List<OutboxEventEntity> pendingEvents = outboxEventRepository.findByProcessedAtIsNullOrderByCreatedAtAsc();
+        try {
+            Integer published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published != null && published == batchSize);
+        } catch (Exception e) {
+            log.error("[Bank Outbox] Drain failed: {}", e.getMessage());
+        }
+    }
 
+    /**
+     * Claims one page, publishes it, waits for the confirms and marks the confirmed events.
+     *
+     * @return number of events marked processed, 0 if any event of the page failed
+     */
+    private int publishBatch() {
+        List<OutboxEventEntity> pendingEvents = outboxEventRepository.claimUnprocessed(batchSize);
         if (pendingEvents.isEmpty()) {
-            return;
+            return 0;
         }
 
         log.info("[Bank Outbox] Processing {} pending events", pendingEvents.size());
 
+        // Publish the whole page first so the confirms are awaited together
+        Map<Long, CorrelationData> inFlight = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
         for (OutboxEventEntity event : pendingEvents) {
             try {
-                // Publish to RabbitMQ
-                rabbitTemplate.convertAndSend(
-                    BANK_STATUS_EXCHANGE,
-                    BANK_STATUS_ROUTING_KEY,
-                    event.getPayload()
-                );
-
-                // Mark as processed
-                event.setProcessedAt(LocalDateTime.now());
-                outboxEventRepository.save(event);
-
-                log.info("[Bank Outbox] Published event: id={}, type={}, aggregateId={}", 
-                        event.getId(), event.getEventType(), event.getAggregateId());
+                CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+                rabbitTemplate.convertAndSend(BANK_STATUS_EXCHANGE, BANK_STATUS_ROUTING_KEY, event.getPayload(), correlation);
+                inFlight.put(event.getId(), correlation);
+            } catch (Exception e) {
+                log.error("[Bank Outbox] Failed to publish event id={}: {}", event.getId(), e.getMessage());
+                failed.add(event.getId());
+            }
+        }
 
+        List<Long> confirmed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (Map.Entry<Long, CorrelationData> entry : inFlight.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = entry.getValue().getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(entry.getKey());
+                } else {
+                    log.warn("[Bank Outbox] Broker nacked event id={}: {}", entry.getKey(), confirm.getReason());
+                    failed.add(entry.getKey());
+                }
+            } catch (TimeoutException e) {
+                log.warn("[Bank Outbox] No confirm for event id={} within {} ms", entry.getKey(), confirmTimeoutMs);
+                failed.add(entry.getKey());
             } catch (Exception e) {
-                log.error("[Bank Outbox] Failed to publish event id={}: {}", 
-                        event.getId(), e.getMessage());
-                // Event remains unprocessed and will be retried
+                log.warn("[Bank Outbox] Confirm for event id={} failed: {}", entry.getKey(), e.getMessage());
+                failed.add(entry.getKey());
+            }
+        }
+
+        if (!confirmed.isEmpty()) {
+            LocalDateTime oldest = pendingEvents.get(0).getCreatedAt();
+            for (OutboxEventEntity event : pendingEvents) {
+                if (event.getCreatedAt().isBefore(oldest)) {
+                    oldest = event.getCreatedAt();
+                }
             }
+            outboxEventRepository.markProcessed(confirmed, oldest, LocalDateTime.now());
+            log.info("[Bank Outbox] Published {} events", confirmed.size());
         }
+        // Unconfirmed events stay unprocessed and are retried by the next poll
+        return failed.isEmpty() ? confirmed.size() : 0;
+    }
+
+    @Override
+    public void destroy() {
+        wakeUpExecutor.shutdown();
     }
 }
@@ -0,0 +1,145 @@
+package com.comp5348.bank.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of ledger_entry and outbox_event (see V6 migration).
+ * Creates partitions ahead of time, drops outbox months whose events are all processed,
+ * and moves old ledger months to the archive schema after carrying their per-account
+ * delta sums into ledger_archived_total.
+ */
+@Slf4j
+@Service
+public class PartitionMaintenanceService {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("ledger_entry", "outbox_event");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int outboxRetentionDays;
+    private final int ledgerRetentionMonths;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       @Value("${bank.retention.months-ahead:2}") int monthsAhead,
+                                       @Value("${bank.retention.outbox-days:7}") int outboxRetentionDays,
+                                       @Value("${bank.retention.ledger-months:24}") int ledgerRetentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.outboxRetentionDays = outboxRetentionDays;
+        this.ledgerRetentionMonths = ledgerRetentionMonths;
+    }
+
+    /**
+     * Runs at startup and then daily; each step is independent and only logs its failures.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bank.retention.cron:0 15 3 * * *}")
+    public void maintain() {
+        for (String table : PARTITIONED_TABLES) {
+            runStep("create partitions for " + table, () -> createUpcomingPartitions(table));
+        }
+        runStep("drop processed outbox partitions", this::dropProcessedOutboxPartitions);
+        runStep("archive ledger partitions", this::archiveLedgerPartitions);
+    }
+
+    private void runStep(String name, Runnable step) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> step.run());
+        } catch (Exception e) {
+            log.error("[Bank] Partition maintenance failed to {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void createUpcomingPartitions(String table) {
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + quote(table + "_p" + month.format(SUFFIX_FORMAT))
+                    + " PARTITION OF " + quote(table)
+                    + " FOR VALUES FROM ('" + month.atDay(1).atStartOfDay().format(BOUND_FORMAT) + "')"
+                    + " TO ('" + month.plusMonths(1).atDay(1).atStartOfDay().format(BOUND_FORMAT) + "')");
+        }
+    }
+
+    /**
+     * Outbox months older than the retention with no unprocessed event left are dropped.
+     */
+    private void dropProcessedOutboxPartitions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(outboxRetentionDays);
+        for (Partition partition : partitionsEndingBefore("outbox_event", cutoff)) {
+            Boolean pending = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + quote(partition.name()) + " WHERE processed_at IS NULL)",
+                    Boolean.class);
+            if (Boolean.TRUE.equals(pending)) {
+                log.warn("[Bank] Keeping outbox partition {}: it still has unprocessed events", partition.name());
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE outbox_event DETACH PARTITION " + quote(partition.name()));
+            jdbcTemplate.execute("DROP TABLE " + quote(partition.name()));
+            log.info("[Bank] Dropped outbox partition {}", partition.name());
+        }
+    }
+
+    /**
+     * Ledger months older than the retention move to the archive schema.
+     * Their per-account totals are carried over in the same transaction.
+     */
+    private void archiveLedgerPartitions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(ledgerRetentionMonths);
+        for (Partition partition : partitionsEndingBefore("ledger_entry", cutoff)) {
+            jdbcTemplate.update("INSERT INTO ledger_archived_total (account_id, delta_sum, archived_through) "
+                    + "SELECT account_id, SUM(delta), ? FROM " + quote(partition.name()) + " GROUP BY account_id "
+                    + "ON CONFLICT (account_id) DO UPDATE SET "
+                    + "delta_sum = ledger_archived_total.delta_sum + EXCLUDED.delta_sum, "
+                    + "archived_through = GREATEST(ledger_archived_total.archived_through, EXCLUDED.archived_through)",
+                    partition.upperBound());
+            jdbcTemplate.execute("ALTER TABLE ledger_entry DETACH PARTITION " + quote(partition.name()));
+            jdbcTemplate.execute("ALTER TABLE " + quote(partition.name()) + " SET SCHEMA archive");
+            log.info("[Bank] Archived ledger partition {}", partition.name());
+        }
+    }
+
+    private List<Partition> partitionsEndingBefore(String table, LocalDateTime cutoff) {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? ORDER BY c.relname",
+                (rs, rowNum) -> {
+                    Matcher bound = UPPER_BOUND.matcher(rs.getString(2));
+                    // The default partition has no bound and is never removed
+                    return bound.find()
+                            ? new Partition(rs.getString(1), LocalDateTime.parse(bound.group(1), BOUND_FORMAT))
+                            : null;
+                },
+                table).stream()
+                .filter(partition -> partition != null && !partition.upperBound().isAfter(cutoff))
+                .toList();
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private record Partition(String name, LocalDateTime upperBound) {
+    }
+}
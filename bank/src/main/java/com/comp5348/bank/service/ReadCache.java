@@ -0,0 +1,200 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.dto.TransferResponseDTO;
+import com.comp5348.bank.model.AccountEntity;
+import com.comp5348.bank.repository.AccountBucketRepository;
+import com.comp5348.bank.repository.AccountRepository;
+import com.comp5348.bank.repository.TransferRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory read side for account balances and transfer statuses.
+ * <p>
+ * Balances are cached with the account version they were read at. createTransfer puts the new
+ * balance once its transaction commits, and an entry only ever replaces one with a lower or equal
+ * version, so commits finishing out of order cannot bring an old balance back. An entry older than
+ * the max age is revalidated with a version-only lookup, which picks up writes made by another bank
+ * instance; the balance is reloaded only if the version moved. Bucketed accounts are not cached:
+ * their credits change the balance without touching the account version.
+ * <p>
+ * Transfer statuses are final once committed (PENDING never commits), so they never go stale.
+ */
+@Service
+public class ReadCache {
+
+    private final AccountRepository accountRepository;
+    private final TransferRepository transferRepository;
+    private final AccountBucketRepository accountBucketRepository;
+    private final long balanceMaxAgeNanos;
+    private final Map<Long, CachedBalance> balances;
+    private final Map<Long, TransferResponseDTO> transfers;
+
+    private final Counter balanceHits;
+    private final Counter balanceRevalidations;
+    private final Counter balanceMisses;
+    private final Counter transferHits;
+    private final Counter transferMisses;
+
+    public ReadCache(AccountRepository accountRepository,
+                     TransferRepository transferRepository,
+                     AccountBucketRepository accountBucketRepository,
+                     MeterRegistry registry,
+                     @Value("${bank.cache.balances:10000}") int maxBalances,
+                     @Value("${bank.cache.transfers:10000}") int maxTransfers,
+                     @Value("${bank.cache.balance-max-age-ms:500}") long balanceMaxAgeMs) {
+        this.accountRepository = accountRepository;
+        this.transferRepository = transferRepository;
+        this.accountBucketRepository = accountBucketRepository;
+        this.balanceMaxAgeNanos = TimeUnit.MILLISECONDS.toNanos(balanceMaxAgeMs);
+        this.balances = lru(maxBalances);
+        this.transfers = lru(maxTransfers);
+
+        this.balanceHits = lookups(registry, "balance", "hit");
+        this.balanceRevalidations = lookups(registry, "balance", "revalidated");
+        this.balanceMisses = lookups(registry, "balance", "miss");
+        this.transferHits = lookups(registry, "transfer", "hit");
+        this.transferMisses = lookups(registry, "transfer", "miss");
+    }
+
+    /**
+     * Current balance of an account, including its buckets if it has any.
+     */
+    public BigDecimal balance(Long accountId) {
+        CachedBalance cached;
+        synchronized (balances) {
+            cached = balances.get(accountId);
+        }
+        if (cached != null) {
+            if (System.nanoTime() - cached.checkedAt() < balanceMaxAgeNanos) {
+                balanceHits.increment();
+                return cached.balance();
+            }
+            Integer version = accountRepository.findVersionById(accountId).orElse(null);
+            if (version != null && version.intValue() == cached.version()) {
+                balanceRevalidations.increment();
+                put(accountId, version, cached.balance());
+                return cached.balance();
+            }
+        }
+
+        balanceMisses.increment();
+        AccountEntity account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        if (account.isBucketed()) {
+            evict(accountId);
+            return account.getBalance().add(accountBucketRepository.sumBalances(accountId));
+        }
+        put(account.getId(), account.getVersion(), account.getBalance());
+        return account.getBalance();
+    }
+
+    /**
+     * Caches the accounts' balances once the current transaction commits.
+     * Read at commit time, so they carry the version the flush gave them.
+     */
+    public void putAfterCommit(AccountEntity... accounts) {
+        afterCommit(() -> {
+            for (AccountEntity account : accounts) {
+                if (account.isBucketed()) {
+                    evict(account.getId());
+                } else {
+                    put(account.getId(), account.getVersion(), account.getBalance());
+                }
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long accountId) {
+        afterCommit(() -> evict(accountId));
+    }
+
+    public TransferResponseDTO transferStatus(Long transferId) {
+        TransferResponseDTO cached;
+        synchronized (transfers) {
+            cached = transfers.get(transferId);
+        }
+        if (cached != null) {
+            transferHits.increment();
+            return cached;
+        }
+        transferMisses.increment();
+        TransferResponseDTO loaded = transferRepository.findById(transferId)
+                .map(TransferResponseDTO::new)
+                .orElseThrow(() -> new IllegalArgumentException("Transfer not found: " + transferId));
+        put(loaded);
+        return loaded;
+    }
+
+    /**
+     * Caches the transfer once the current transaction commits; a later put for the same
+     * transfer in the same transaction (a refund marking its type) wins.
+     */
+    public void putAfterCommit(TransferResponseDTO transfer) {
+        afterCommit(() -> put(transfer));
+    }
+
+    private void put(Long accountId, Integer version, BigDecimal balance) {
+        if (version == null) {
+            return;
+        }
+        synchronized (balances) {
+            CachedBalance cached = balances.get(accountId);
+            if (cached == null || cached.version() <= version) {
+                balances.put(accountId, new CachedBalance(version, balance, System.nanoTime()));
+            }
+        }
+    }
+
+    private void evict(Long accountId) {
+        synchronized (balances) {
+            balances.remove(accountId);
+        }
+    }
+
+    private void put(TransferResponseDTO transfer) {
+        synchronized (transfers) {
+            transfers.put(transfer.getTransferId(), transfer);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static <V> Map<Long, V> lru(int capacity) {
+        return new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static Counter lookups(MeterRegistry registry, String cache, String result) {
+        return Counter.builder("bank.cache.lookups")
+                .tag("cache", cache).tag("result", result)
+                .description("Read cache lookups").register(registry);
+    }
+
+    private record CachedBalance(int version, BigDecimal balance, long checkedAt) {
+    }
+}
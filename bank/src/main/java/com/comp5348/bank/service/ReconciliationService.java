@@ -0,0 +1,330 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.dto.BalanceMismatchDTO;
+import com.comp5348.bank.dto.ReconciliationReportDTO;
+import com.comp5348.bank.dto.TransferMismatchDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reconciles the ledger against the balances it should explain:
+ * <ul>
+ *   <li>every account: balance plus buckets = opening balance + ledger deltas (+ archived totals)</li>
+ *   <li>every transfer not yet archived: a succeeded one has exactly one debit of the payer and one
+ *       credit of the payee for its amount, any other has no ledger entries</li>
+ * </ul>
+ * The account-id space is split into ranges with fork/join; each leaf range runs two aggregate
+ * queries in one read-only REPEATABLE READ snapshot and streams the rows with a bounded fetch size,
+ * so neither the ledger nor the transfers are ever held in memory. Reads take no row locks, run on
+ * at most parallelism connections, and each leaf is bounded by a statement timeout.
+ * Transfers are checked with the range of their payer, so each is checked exactly once.
+ */
+@Slf4j
+@Service
+public class ReconciliationService implements DisposableBean {
+
+    private static final String ACCOUNT_QUERY =
+            "SELECT a.id, a.balance + COALESCE(b.total, 0) AS balance, " +
+            "       a.opening_balance + COALESCE(l.total, 0) + COALESCE(t.delta_sum, 0) AS ledger_balance " +
+            "FROM account a " +
+            "LEFT JOIN (SELECT account_id, SUM(balance) AS total FROM account_bucket " +
+            "           WHERE account_id BETWEEN ? AND ? GROUP BY account_id) b ON b.account_id = a.id " +
+            "LEFT JOIN (SELECT account_id, SUM(delta) AS total FROM ledger_entry " +
+            "           WHERE account_id BETWEEN ? AND ? GROUP BY account_id) l ON l.account_id = a.id " +
+            "LEFT JOIN ledger_archived_total t ON t.account_id = a.id " +
+            "WHERE a.id BETWEEN ? AND ?";
+
+    // Transfers older than the archive horizon have their ledger rows in the archive schema
+    private static final String TRANSFER_QUERY =
+            "SELECT t.id, t.status, t.amount, COUNT(l.id) AS entries, " +
+            "       COALESCE(SUM(l.delta) FILTER (WHERE l.account_id = t.from_account_id AND l.delta < 0), 0) AS debited, " +
+            "       COALESCE(SUM(l.delta) FILTER (WHERE l.account_id = t.to_account_id AND l.delta > 0), 0) AS credited " +
+            "FROM transfer t " +
+            "LEFT JOIN ledger_entry l ON l.transfer_id = t.id " +
+            "WHERE t.from_account_id BETWEEN ? AND ? " +
+            "  AND t.created_at >= COALESCE((SELECT MAX(archived_through) FROM ledger_archived_total), '-infinity') " +
+            "GROUP BY t.id, t.status, t.amount";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int rangeSize;
+    private final int maxReported;
+
+    private final ForkJoinPool pool;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("bank-reconciliation").daemon().factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReportDTO latestReport;
+
+    private final AtomicLong accountsChecked = new AtomicLong();
+    private final AtomicLong transfersChecked = new AtomicLong();
+    private final AtomicLong balanceMismatches = new AtomicLong();
+    private final AtomicLong transferMismatches = new AtomicLong();
+    private final AtomicLong lastCompletedEpochSeconds = new AtomicLong();
+    private final Timer runTime;
+    private final Counter failedRuns;
+
+    public ReconciliationService(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry registry,
+                                 @Value("${bank.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${bank.reconciliation.range-size:1000}") int rangeSize,
+                                 @Value("${bank.reconciliation.fetch-size:500}") int fetchSize,
+                                 @Value("${bank.reconciliation.range-timeout-seconds:60}") int rangeTimeoutSeconds,
+                                 @Value("${bank.reconciliation.max-reported:100}") int maxReported) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setTimeout(rangeTimeoutSeconds);
+        this.rangeSize = Math.max(1, rangeSize);
+        this.maxReported = maxReported;
+        this.pool = new ForkJoinPool(parallelism);
+
+        Gauge.builder("bank.reconciliation.accounts.checked", accountsChecked, AtomicLong::get)
+                .description("Accounts checked by the last run").register(registry);
+        Gauge.builder("bank.reconciliation.transfers.checked", transfersChecked, AtomicLong::get)
+                .description("Transfers checked by the last run").register(registry);
+        Gauge.builder("bank.reconciliation.balance.mismatches", balanceMismatches, AtomicLong::get)
+                .description("Accounts whose balance the ledger does not explain").register(registry);
+        Gauge.builder("bank.reconciliation.transfer.mismatches", transferMismatches, AtomicLong::get)
+                .description("Transfers without a balanced debit/credit pair").register(registry);
+        Gauge.builder("bank.reconciliation.last.completed", lastCompletedEpochSeconds, AtomicLong::get)
+                .description("Epoch seconds at which the last complete run finished").register(registry);
+        this.runTime = Timer.builder("bank.reconciliation.duration")
+                .description("Reconciliation run time").register(registry);
+        this.failedRuns = Counter.builder("bank.reconciliation.failed")
+                .description("Runs that failed or left ranges unchecked").register(registry);
+    }
+
+    /**
+     * Starts a run in the background.
+     *
+     * @return false if a run is already in progress
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        ReconciliationReportDTO report = new ReconciliationReportDTO();
+        report.setStatus("RUNNING");
+        report.setStartedAt(LocalDateTime.now());
+        latestReport = report;
+        runner.execute(() -> {
+            try {
+                runTime.record(() -> reconcile(report.getStartedAt()));
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    @Scheduled(cron = "${bank.reconciliation.cron:0 45 3 * * *}")
+    public void scheduledRun() {
+        if (!start()) {
+            log.info("[Bank] Scheduled reconciliation skipped, a run is in progress");
+        }
+    }
+
+    public ReconciliationReportDTO getLatestReport() {
+        return latestReport;
+    }
+
+    private void reconcile(LocalDateTime startedAt) {
+        ReconciliationReportDTO report = new ReconciliationReportDTO();
+        report.setStartedAt(startedAt);
+        try {
+            Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM account");
+            RangeResult result = bounds.get("lo") == null
+                    ? new RangeResult()
+                    : pool.invoke(new RangeTask(((Number) bounds.get("lo")).longValue(), ((Number) bounds.get("hi")).longValue()));
+
+            report.setAccountsChecked(result.accountsChecked);
+            report.setTransfersChecked(result.transfersChecked);
+            report.setBalanceMismatchCount(result.balanceMismatchCount);
+            report.setTransferMismatchCount(result.transferMismatchCount);
+            report.setBalanceMismatches(result.balanceMismatches);
+            report.setTransferMismatches(result.transferMismatches);
+            report.setFailedRanges(result.failedRanges);
+            report.setStatus(result.failedRanges.isEmpty() ? "COMPLETED" : "INCOMPLETE");
+        } catch (Exception e) {
+            log.error("[Bank] Reconciliation failed: {}", e.getMessage(), e);
+            report.setStatus("FAILED");
+            report.setFailure(e.getMessage());
+        }
+        report.setFinishedAt(LocalDateTime.now());
+        latestReport = report;
+        publishMetrics(report);
+
+        log.info("[Bank] Reconciliation {}: {} accounts, {} transfers, {} balance mismatches, {} transfer mismatches, {} failed ranges",
+                report.getStatus(), report.getAccountsChecked(), report.getTransfersChecked(),
+                report.getBalanceMismatchCount(), report.getTransferMismatchCount(), report.getFailedRanges().size());
+    }
+
+    private void publishMetrics(ReconciliationReportDTO report) {
+        if (!"COMPLETED".equals(report.getStatus())) {
+            failedRuns.increment();
+            if ("FAILED".equals(report.getStatus())) {
+                return;
+            }
+        }
+        accountsChecked.set(report.getAccountsChecked());
+        transfersChecked.set(report.getTransfersChecked());
+        balanceMismatches.set(report.getBalanceMismatchCount());
+        transferMismatches.set(report.getTransferMismatchCount());
+        if ("COMPLETED".equals(report.getStatus())) {
+            lastCompletedEpochSeconds.set(report.getFinishedAt().atZone(ZoneId.systemDefault()).toEpochSecond());
+        }
+    }
+
+    /**
+     * Checks one account-id range in a single snapshot. A failing range is reported, not fatal.
+     */
+    private RangeResult checkRange(long lo, long hi) {
+        RangeResult result = new RangeResult();
+        try {
+            snapshotTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query(ACCOUNT_QUERY, rs -> {
+                    result.accountsChecked++;
+                    BigDecimal balance = rs.getBigDecimal("balance");
+                    BigDecimal ledgerBalance = rs.getBigDecimal("ledger_balance");
+                    if (balance.compareTo(ledgerBalance) != 0) {
+                        result.balanceMismatch(new BalanceMismatchDTO(rs.getLong("id"), balance, ledgerBalance,
+                                balance.subtract(ledgerBalance)));
+                    }
+                }, lo, hi, lo, hi, lo, hi);
+
+                jdbcTemplate.query(TRANSFER_QUERY, rs -> {
+                    result.transfersChecked++;
+                    String transferStatus = rs.getString("status");
+                    BigDecimal amount = rs.getBigDecimal("amount");
+                    int entries = rs.getInt("entries");
+                    BigDecimal debited = rs.getBigDecimal("debited");
+                    BigDecimal credited = rs.getBigDecimal("credited");
+                    String reason = pairMismatch(transferStatus, amount, entries, debited, credited);
+                    if (reason != null) {
+                        result.transferMismatch(new TransferMismatchDTO(rs.getLong("id"), transferStatus, amount,
+                                entries, debited, credited, reason));
+                    }
+                }, lo, hi);
+            });
+        } catch (Exception e) {
+            log.error("[Bank] Reconciliation of accounts {}-{} failed: {}", lo, hi, e.getMessage());
+            result.failedRanges.add(lo + "-" + hi + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    private static String pairMismatch(String status, BigDecimal amount, int entries,
+                                       BigDecimal debited, BigDecimal credited) {
+        if (!"SUCCEEDED".equals(status)) {
+            return entries == 0 ? null : "Transfer did not succeed but has " + entries + " ledger entries";
+        }
+        if (entries != 2) {
+            return "Expected 2 ledger entries, found " + entries;
+        }
+        if (debited.negate().compareTo(amount) != 0 || credited.compareTo(amount) != 0) {
+            return "Debit and credit do not both match the amount";
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Halves the range until it is at most rangeSize account ids wide.
+     */
+    private class RangeTask extends RecursiveTask<RangeResult> {
+
+        private final long lo;
+        private final long hi;
+
+        RangeTask(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            if (hi - lo < rangeSize) {
+                return checkRange(lo, hi);
+            }
+            long mid = lo + (hi - lo) / 2;
+            RangeTask left = new RangeTask(lo, mid);
+            left.fork();
+            RangeResult right = new RangeTask(mid + 1, hi).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Counts of one range; confined to the task that built it until merged.
+     */
+    private class RangeResult {
+        long accountsChecked;
+        long transfersChecked;
+        long balanceMismatchCount;
+        long transferMismatchCount;
+        final List<BalanceMismatchDTO> balanceMismatches = new ArrayList<>();
+        final List<TransferMismatchDTO> transferMismatches = new ArrayList<>();
+        final List<String> failedRanges = new ArrayList<>();
+
+        void balanceMismatch(BalanceMismatchDTO mismatch) {
+            balanceMismatchCount++;
+            if (balanceMismatches.size() < maxReported) {
+                balanceMismatches.add(mismatch);
+            }
+        }
+
+        void transferMismatch(TransferMismatchDTO mismatch) {
+            transferMismatchCount++;
+            if (transferMismatches.size() < maxReported) {
+                transferMismatches.add(mismatch);
+            }
+        }
+
+        RangeResult merge(RangeResult other) {
+            accountsChecked += other.accountsChecked;
+            transfersChecked += other.transfersChecked;
+            balanceMismatchCount += other.balanceMismatchCount;
+            transferMismatchCount += other.transferMismatchCount;
+            balanceMismatches.addAll(other.balanceMismatches.subList(0,
+                    Math.min(other.balanceMismatches.size(), Math.max(0, maxReported - balanceMismatches.size()))));
+            transferMismatches.addAll(other.transferMismatches.subList(0,
+                    Math.min(other.transferMismatches.size(), Math.max(0, maxReported - transferMismatches.size()))));
+            failedRanges.addAll(other.failedRanges);
+            return this;
+        }
+    }
+}
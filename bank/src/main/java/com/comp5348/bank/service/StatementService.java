@@ -0,0 +1,77 @@
+package com.comp5348.bank.service;
+
+import com.comp5348.bank.dto.LedgerEntryDTO;
+import com.comp5348.bank.dto.StatementPageDTO;
+import com.comp5348.bank.repository.AccountRepository;
+import com.comp5348.bank.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Account statements: the ledger entries of one account, oldest first, one keyset page at a time.
+ * Every page is a range scan on (account_id, id) starting at the cursor, so page 1000 costs
+ * the same as page 1. Entries are ordered by id, which follows insertion order; pooled id
+ * blocks (V4) mean two bank instances can interleave ids out of created_at order by a few entries.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String CURSOR_PREFIX = "le1:";
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    /**
+     * Fetches one extra row to know whether another page exists.
+     */
+    @Transactional(readOnly = true)
+    public StatementPageDTO getStatement(Long accountId, LocalDateTime from, LocalDateTime to,
+                                         String cursor, int size) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new IllegalArgumentException("Account not found: " + accountId);
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Statement range is empty: from must be before to");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Long afterId = cursor == null || cursor.isBlank() ? null : decodeCursor(accountId, cursor);
+
+        List<LedgerEntryDTO> rows = ledgerEntryRepository.findStatementPage(accountId, from, to, afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new StatementPageDTO(accountId, rows, null);
+        }
+        List<LedgerEntryDTO> page = new ArrayList<>(rows.subList(0, pageSize));
+        return new StatementPageDTO(accountId, page, encodeCursor(accountId, page.get(pageSize - 1).getEntryId()));
+    }
+
+    /**
+     * The token carries the account, so a cursor cannot be replayed against another account's statement.
+     */
+    private static String encodeCursor(Long accountId, Long lastEntryId) {
+        String raw = CURSOR_PREFIX + accountId + ":" + lastEntryId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(Long accountId, String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.startsWith(CURSOR_PREFIX) ? raw.substring(CURSOR_PREFIX.length()).split(":") : new String[0];
+            if (parts.length != 2 || !parts[0].equals(String.valueOf(accountId))) {
+                throw new IllegalArgumentException("Invalid statement cursor");
+            }
+            return Long.parseLong(parts[1]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and malformed Base64 are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid statement cursor", e);
+        }
+    }
+}
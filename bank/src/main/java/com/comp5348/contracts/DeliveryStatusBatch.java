@@ -0,0 +1,17 @@
+package com.comp5348.contracts;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Several delivery status changes in one message, in the order they happened
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeliveryStatusBatch {
+
+    private List<DeliveryStatus> statuses = new ArrayList<>();
+}
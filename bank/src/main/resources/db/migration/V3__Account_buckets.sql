@@ -0,0 +1,25 @@
+-- Striped balance buckets for high-traffic accounts.
+-- An account with bucket_count > 1 receives credits into one of its account_bucket rows,
+-- so concurrent charges do not serialize on the account row. Its balance is
+-- account.balance plus the sum of its buckets.
+ALTER TABLE account ADD COLUMN bucket_count INTEGER NOT NULL DEFAULT 1;
+
+CREATE TABLE account_bucket (
+    id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    bucket_no INTEGER NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL DEFAULT 0.00,
+    CONSTRAINT uk_account_bucket UNIQUE (account_id, bucket_no)
+);
+
+-- Bucket a ledger entry was applied to; NULL for the account row itself
+ALTER TABLE ledger_entry ADD COLUMN bucket_no INTEGER;
+
+-- The store account (ID=1) is credited by every charge
+UPDATE account SET bucket_count = 16 WHERE id = 1;
+
+INSERT INTO account_bucket (account_id, bucket_no)
+SELECT a.id, b.n
+FROM account a
+CROSS JOIN LATERAL generate_series(0, a.bucket_count - 1) AS b(n)
+WHERE a.bucket_count > 1;
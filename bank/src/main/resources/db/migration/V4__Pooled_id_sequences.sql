@@ -0,0 +1,6 @@
+-- Transfer, ledger and outbox ids are allocated 50 at a time by Hibernate (pooled optimizer),
+-- which lets their inserts be sent as JDBC batches. Rows inserted by plain SQL still get
+-- unique ids from the same sequences, just with gaps.
+ALTER SEQUENCE transfer_id_seq INCREMENT BY 50;
+ALTER SEQUENCE ledger_entry_id_seq INCREMENT BY 50;
+ALTER SEQUENCE outbox_event_id_seq INCREMENT BY 50;
@@ -0,0 +1,5 @@
+-- The outbox publisher only ever reads unprocessed events in id order.
+-- A partial index stays as small as the backlog, unlike the index on processed_at,
+-- which grows with every processed event.
+CREATE INDEX idx_outbox_unprocessed ON outbox_event(id) WHERE processed_at IS NULL;
+DROP INDEX IF EXISTS idx_processed;
@@ -0,0 +1,87 @@
+-- Range-partition ledger_entry and outbox_event by month of created_at, so old months can be
+-- detached instead of deleted row by row, and indexes only grow with the retained months.
+-- Rows older than this migration go to a <table>_history partition, future months are created
+-- ahead of time by PartitionMaintenanceService, and a default partition catches anything else.
+--
+-- transfer is deliberately left unpartitioned: PostgreSQL can only enforce unique constraints
+-- that include the partition key, and idempotency_key / correlation_id must be unique globally.
+
+-- ledger_entry
+ALTER TABLE ledger_entry RENAME TO ledger_entry_old;
+ALTER TABLE ledger_entry_old ALTER COLUMN id DROP DEFAULT;
+ALTER SEQUENCE ledger_entry_id_seq OWNED BY NONE;
+
+CREATE TABLE ledger_entry (
+    id BIGINT NOT NULL DEFAULT nextval('ledger_entry_id_seq'),
+    transfer_id BIGINT NOT NULL,
+    account_id BIGINT NOT NULL,
+    delta NUMERIC(19, 2) NOT NULL,
+    balance_after NUMERIC(19, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    bucket_no INTEGER,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE ledger_entry_id_seq OWNED BY ledger_entry.id;
+
+-- outbox_event
+ALTER TABLE outbox_event RENAME TO outbox_event_old;
+ALTER TABLE outbox_event_old ALTER COLUMN id DROP DEFAULT;
+ALTER SEQUENCE outbox_event_id_seq OWNED BY NONE;
+
+CREATE TABLE outbox_event (
+    id BIGINT NOT NULL DEFAULT nextval('outbox_event_id_seq'),
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE outbox_event_id_seq OWNED BY outbox_event.id;
+
+-- Partitions: history, this month and the next two, default
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', CURRENT_DATE);
+    parent TEXT;
+    m INT;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['ledger_entry', 'outbox_event'] LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (MINVALUE) TO (%L)',
+                       parent || '_history', parent, month_start);
+        FOR m IN 0..2 LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_p' || to_char(month_start + make_interval(months => m), 'YYYYMM'), parent,
+                           month_start + make_interval(months => m),
+                           month_start + make_interval(months => m + 1));
+        END LOOP;
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', parent || '_default', parent);
+    END LOOP;
+END $$;
+
+INSERT INTO ledger_entry (id, transfer_id, account_id, delta, balance_after, created_at, bucket_no)
+SELECT id, transfer_id, account_id, delta, balance_after, created_at, bucket_no FROM ledger_entry_old;
+
+INSERT INTO outbox_event (id, aggregate_type, aggregate_id, event_type, payload, created_at, processed_at)
+SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at, processed_at FROM outbox_event_old;
+
+DROP TABLE ledger_entry_old;
+DROP TABLE outbox_event_old;
+
+-- Indexes are created on the parent and cascade to every partition
+CREATE INDEX idx_transfer_id ON ledger_entry(transfer_id);
+CREATE INDEX idx_account_id ON ledger_entry(account_id);
+CREATE INDEX idx_outbox_unprocessed ON outbox_event(id) WHERE processed_at IS NULL;
+
+-- Archived ledger months: the per-account sum of their deltas is kept here, so balances can
+-- still be reconciled against the ledger once the rows themselves are in the archive schema
+CREATE SCHEMA IF NOT EXISTS archive;
+
+CREATE TABLE ledger_archived_total (
+    account_id BIGINT PRIMARY KEY,
+    delta_sum NUMERIC(19, 2) NOT NULL,
+    archived_through TIMESTAMP NOT NULL
+);
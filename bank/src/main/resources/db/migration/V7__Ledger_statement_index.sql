@@ -0,0 +1,5 @@
+-- Account statements page through ledger_entry by (account_id, id). With the composite
+-- index every page is an index range scan starting at the cursor, however deep it is.
+-- It covers every lookup the single-column index served, so that one is dropped.
+CREATE INDEX idx_ledger_account_id_id ON ledger_entry(account_id, id);
+DROP INDEX IF EXISTS idx_account_id;
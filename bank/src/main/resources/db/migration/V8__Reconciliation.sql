@@ -0,0 +1,12 @@
+-- Reconciliation checks that balance plus buckets equals opening_balance plus the ledger deltas
+-- (live and archived). Accounts are opened with a balance no ledger entry records, so it is kept here.
+ALTER TABLE account ADD COLUMN opening_balance NUMERIC(19, 2) NOT NULL DEFAULT 0.00;
+
+-- Existing accounts: whatever the ledger does not explain is taken as their opening balance
+UPDATE account a SET opening_balance = a.balance
+    + COALESCE((SELECT SUM(b.balance) FROM account_bucket b WHERE b.account_id = a.id), 0)
+    - COALESCE((SELECT SUM(l.delta) FROM ledger_entry l WHERE l.account_id = a.id), 0)
+    - COALESCE((SELECT t.delta_sum FROM ledger_archived_total t WHERE t.account_id = a.id), 0);
+
+-- Transfers are reconciled in ranges of their payer account, skipping those already archived
+CREATE INDEX idx_transfer_from_account ON transfer(from_account_id, created_at);
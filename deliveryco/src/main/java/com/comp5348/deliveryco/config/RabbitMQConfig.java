@@ -4,8 +4,10 @@ import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitMQConfig {
@@ -16,11 +18,15 @@ public class RabbitMQConfig {
 
     public static final String STATUS_EXCHANGE = "status.exchange";
     public static final String RK_DELIVERY_STATUS = "delivery.status";
+    public static final String RK_DELIVERY_STATUS_BATCH = "delivery.status.batch";
 
     public static final String CANCEL_EXCHANGE = "cancel.exchange";
     public static final String CANCEL_QUEUE = "cancel.delivery.queue";
     public static final String RK_ORDER_CANCELLED = "order.cancelled";
 
+    // Every DeliveryCo node gets every cancellation on its own auto-delete queue
+    public static final String CANCEL_BROADCAST_EXCHANGE = "deliveryco.cancel.broadcast";
+
     @Bean
     public Jackson2JsonMessageConverter jackson2JsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -29,10 +35,15 @@ public class RabbitMQConfig {
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
             ConnectionFactory connectionFactory,
-            Jackson2JsonMessageConverter converter) {
+            Jackson2JsonMessageConverter converter,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(converter);
+        // A custom factory is not covered by Boot's virtual-thread support, so opt in here
+        if (virtualThreads) {
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-listener-"));
+        }
         return factory;
     }
 
@@ -73,4 +84,19 @@ public class RabbitMQConfig {
                 .to(cancelExchange())
                 .with(RK_ORDER_CANCELLED);
     }
+
+    @Bean
+    public FanoutExchange cancelBroadcastExchange() {
+        return ExchangeBuilder.fanoutExchange(CANCEL_BROADCAST_EXCHANGE).durable(true).build();
+    }
+
+    @Bean
+    public Queue cancelBroadcastQueue() {
+        return new AnonymousQueue(new Base64UrlNamingStrategy("deliveryco.cancel."));
+    }
+
+    @Bean
+    public Binding cancelBroadcastBinding() {
+        return BindingBuilder.bind(cancelBroadcastQueue()).to(cancelBroadcastExchange());
+    }
 }
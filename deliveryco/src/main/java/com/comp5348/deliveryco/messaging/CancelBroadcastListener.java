@@ -0,0 +1,22 @@
+package com.comp5348.deliveryco.messaging;
+
+import com.comp5348.deliveryco.service.CancellationRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+// Cancellations persisted by any node, so this node's in-memory registry sees them too
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CancelBroadcastListener {
+
+    private final CancellationRegistry cancellationRegistry;
+
+    @RabbitListener(queues = "#{cancelBroadcastQueue.name}")
+    public void handleCancellationBroadcast(Long orderId) {
+        cancellationRegistry.add(orderId);
+        log.debug("[DeliveryCo] Cancellation of order {} registered from broadcast", orderId);
+    }
+}
@@ -1,24 +1,58 @@
 package com.comp5348.deliveryco.messaging;
 
 import com.comp5348.contracts.DeliveryStatus;
-import lombok.RequiredArgsConstructor;
+import com.comp5348.contracts.DeliveryStatusBatch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static com.comp5348.deliveryco.config.RabbitMQConfig.STATUS_EXCHANGE;
 import static com.comp5348.deliveryco.config.RabbitMQConfig.RK_DELIVERY_STATUS;
+import static com.comp5348.deliveryco.config.RabbitMQConfig.RK_DELIVERY_STATUS_BATCH;
 
+// Sends status changes to the Store. A poll transaction's statuses go out as DeliveryStatusBatch
+// messages of up to batchSize each, so the Store applies them with one load and one flush per
+// message. Batches are cut per transaction rather than buffered across them: statuses are still
+// sent before the commit that records them, so a crash cannot lose one.
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class StatusPublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final int batchSize;
+
+    public StatusPublisher(RabbitTemplate rabbitTemplate,
+                           @Value("${deliveryco.status.batch-size:100}") int batchSize) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.batchSize = batchSize;
+    }
 
     public void publish(DeliveryStatus status) {
         rabbitTemplate.convertAndSend(STATUS_EXCHANGE, RK_DELIVERY_STATUS, status);
         log.info("[DeliveryCo → Store] Order {} marked {} ({})",
                 status.getOrderId(), status.getState(), status.getNote());
     }
+
+    // All batches of one call share a channel
+    public void publishAll(List<DeliveryStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        if (statuses.size() == 1) {
+            publish(statuses.get(0));
+            return;
+        }
+        rabbitTemplate.invoke(ops -> {
+            for (int from = 0; from < statuses.size(); from += batchSize) {
+                List<DeliveryStatus> chunk = statuses.subList(from, Math.min(from + batchSize, statuses.size()));
+                ops.convertAndSend(STATUS_EXCHANGE, RK_DELIVERY_STATUS_BATCH, new DeliveryStatusBatch(List.copyOf(chunk)));
+            }
+            return null;
+        });
+        log.info("[DeliveryCo → Store] Published {} delivery statuses in {} batches",
+                statuses.size(), (statuses.size() + batchSize - 1) / batchSize);
+    }
 }
@@ -0,0 +1,36 @@
+package com.comp5348.deliveryco.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// A batch of shipments from one warehouse, picked up and delivered together.
+// The run carries the timeline; its shipments point at it through shipment.run_id.
+@Data
+@Entity
+@Table(name = "courier_run", indexes = {
+        @Index(name = "idx_courier_run_next_transition", columnList = "next_transition_at")
+})
+public class CourierRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "warehouse_location")
+    private String warehouseLocation;
+
+    // REQUESTED, IN_TRANSIT or DONE
+    @Column(name = "current_state")
+    private String currentState;
+
+    @Column(name = "shipment_count", nullable = false)
+    private int shipmentCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // When the run poller should advance this run; null once done
+    @Column(name = "next_transition_at")
+    private LocalDateTime nextTransitionAt;
+}
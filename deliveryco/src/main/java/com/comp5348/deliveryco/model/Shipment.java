@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "shipment")
+@Table(name = "shipment", indexes = {
+        @Index(name = "idx_shipment_next_transition", columnList = "next_transition_at"),
+        @Index(name = "idx_shipment_run", columnList = "run_id, warehouse_location")
+})
 public class Shipment {
 
     @Id
@@ -30,5 +33,13 @@ public class Shipment {
 
     @Column(name = "last_update_time")
     private LocalDateTime lastUpdateTime;
+
+    // When the timeline poller should advance this shipment; null once final or cancelled
+    @Column(name = "next_transition_at")
+    private LocalDateTime nextTransitionAt;
+
+    // Courier run carrying this shipment; null while it waits to be batched
+    @Column(name = "run_id")
+    private Long runId;
 }
 
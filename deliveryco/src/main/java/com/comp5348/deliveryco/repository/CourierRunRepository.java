@@ -0,0 +1,17 @@
+package com.comp5348.deliveryco.repository;
+
+import com.comp5348.deliveryco.model.CourierRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CourierRunRepository extends JpaRepository<CourierRun, Long> {
+
+    // Due runs, oldest first; runs locked by another instance are skipped, not waited for
+    @Query(value = "SELECT * FROM courier_run WHERE next_transition_at <= :now " +
+            "ORDER BY next_transition_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<CourierRun> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
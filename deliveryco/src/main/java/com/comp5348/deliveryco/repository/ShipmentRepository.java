@@ -1,7 +1,81 @@
 package com.comp5348.deliveryco.repository;
 
 import com.comp5348.deliveryco.model.Shipment;
+import com.comp5348.deliveryco.service.DeliveryOutcome;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
+
+    // Due shipments, oldest first; rows locked by another instance are skipped, not waited for
+    @Query(value = "SELECT * FROM shipment WHERE next_transition_at <= :now " +
+            "ORDER BY next_transition_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Shipment> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // In-flight shipments written before next_transition_at existed are due right away.
+    // Shipments in a courier run are timed by the run, not by their own row.
+    @Modifying
+    @Query(value = "UPDATE shipment SET next_transition_at = :now " +
+            "WHERE next_transition_at IS NULL AND run_id IS NULL AND NOT cancelled " +
+            "AND current_state IN (:states)", nativeQuery = true)
+    int scheduleUntimed(@Param("now") LocalDateTime now, @Param("states") List<String> states);
+
+    // Warehouses whose pending shipments fill a courier run, or have waited out the batching window
+    @Query(value = "SELECT warehouse_location FROM shipment " +
+            "WHERE run_id IS NULL AND next_transition_at IS NULL AND current_state = 'REQUESTED' AND NOT cancelled " +
+            "GROUP BY warehouse_location " +
+            "HAVING COUNT(*) >= :capacity OR MIN(last_update_time) <= :windowStart", nativeQuery = true)
+    List<String> findWarehousesReadyForRun(@Param("capacity") int capacity,
+                                           @Param("windowStart") LocalDateTime windowStart);
+
+    // Oldest pending shipments of one warehouse; the cast lets a null location match too
+    @Query(value = "SELECT order_id FROM shipment " +
+            "WHERE run_id IS NULL AND next_transition_at IS NULL AND current_state = 'REQUESTED' AND NOT cancelled " +
+            "AND warehouse_location IS NOT DISTINCT FROM CAST(:warehouse AS varchar) " +
+            "ORDER BY last_update_time LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> claimPendingForRun(@Param("warehouse") String warehouse, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE shipment SET run_id = :runId WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int assignRun(@Param("runId") Long runId, @Param("orderIds") List<Long> orderIds);
+
+    // Picks up every live shipment of a run in one statement. Both run updates bump the version,
+    // so a cancel or a redelivered request that read the row before fails its optimistic lock
+    // instead of overwriting the run's state
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shipment"))
+    @Query(value = "UPDATE shipment SET current_state = 'IN_TRANSIT', last_update_time = :now, " +
+            "version = version + 1 " +
+            "WHERE run_id = :runId AND current_state = 'REQUESTED' AND NOT cancelled " +
+            "RETURNING order_id", nativeQuery = true)
+    List<Long> pickUpRun(@Param("runId") Long runId, @Param("now") LocalDateTime now);
+
+    // Delivers every live shipment of a run in one statement. Whether each one is lost is the
+    // DeliveryOutcome hash of its order id, so a retried run comes out exactly the same
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "shipment"))
+    @Query(value = "UPDATE shipment SET last_update_time = :now, version = version + 1, current_state = " +
+            "CASE WHEN mod(mod(order_id, " + DeliveryOutcome.MODULUS + ") * " + DeliveryOutcome.MULTIPLIER +
+            ", " + DeliveryOutcome.MODULUS + ") < :lostThreshold THEN 'LOST' ELSE 'DELIVERED' END " +
+            "WHERE run_id = :runId AND current_state = 'IN_TRANSIT' AND NOT cancelled " +
+            "RETURNING order_id AS orderId, current_state AS currentState", nativeQuery = true)
+    List<RunOutcome> deliverRun(@Param("runId") Long runId, @Param("now") LocalDateTime now,
+                                @Param("lostThreshold") long lostThreshold);
+
+    interface RunOutcome {
+        Long getOrderId();
+
+        String getCurrentState();
+    }
+
+    @Query("SELECT s.orderId FROM Shipment s WHERE s.cancelled = true AND s.lastUpdateTime >= :since " +
+            "ORDER BY s.lastUpdateTime DESC")
+    List<Long> findCancelledOrderIdsSince(@Param("since") LocalDateTime since, Pageable pageable);
 }
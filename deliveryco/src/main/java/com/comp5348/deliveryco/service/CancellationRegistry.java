@@ -0,0 +1,171 @@
+package com.comp5348.deliveryco.service;
+
+import com.comp5348.deliveryco.repository.ShipmentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// In-memory index of recently cancelled orders, so isCancelled is an O(1) check.
+// Open addressing over two primitive arrays (order id, expiry): no boxed Longs, no entry objects,
+// and a fixed footprint of 16 bytes per slot. Entries expire after the TTL and are swept out
+// periodically; if the table still fills up, the entry closest to expiry is dropped.
+// Forgetting a cancellation is safe: shipment.cancelled is the source of truth and is checked
+// on every transition, this index only saves the lookups and covers the time before a row exists.
+//
+// Metrics: deliveryco.cancellations.size
+@Slf4j
+@Component
+public class CancellationRegistry {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final ShipmentRepository shipmentRepository;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final int hashShift;
+    private long[] keys;
+    private long[] expiresAt;
+    private int size;
+
+    @Autowired
+    public CancellationRegistry(ShipmentRepository shipmentRepository,
+                                MeterRegistry registry,
+                                @Value("${deliveryco.cancellations.max-entries:100000}") int maxEntries,
+                                @Value("${deliveryco.cancellations.ttl-hours:24}") long ttlHours) {
+        this(shipmentRepository, registry, maxEntries, TimeUnit.HOURS.toMillis(ttlHours), System::currentTimeMillis);
+    }
+
+    // Clock in milliseconds, replaceable in tests
+    CancellationRegistry(ShipmentRepository shipmentRepository, MeterRegistry registry,
+                         int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.shipmentRepository = shipmentRepository;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        // Power-of-two table at most half full keeps probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(16, maxEntries * 2 - 1)) << 1;
+        this.hashShift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.keys = new long[capacity];
+        this.expiresAt = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        Gauge.builder("deliveryco.cancellations.size", this, CancellationRegistry::size)
+                .description("Cancelled orders held in memory").register(registry);
+    }
+
+    // A restarted node starts with the cancellations of the last TTL, newest first
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minus(ttlMillis, ChronoUnit.MILLIS);
+        var orderIds = shipmentRepository.findCancelledOrderIdsSince(since, PageRequest.of(0, maxEntries));
+        orderIds.forEach(this::add);
+        log.info("[DeliveryCo] Cancellation registry warmed up with {} orders", orderIds.size());
+    }
+
+    public synchronized void add(long orderId) {
+        long now = clock.getAsLong();
+        int slot = find(orderId);
+        if (keys[slot] == orderId) {
+            expiresAt[slot] = now + ttlMillis;
+            return;
+        }
+        if (size >= maxEntries) {
+            sweep(now);
+            if (size >= maxEntries) {
+                evictSoonestToExpire();
+            }
+            slot = find(orderId);
+        }
+        keys[slot] = orderId;
+        expiresAt[slot] = now + ttlMillis;
+        size++;
+    }
+
+    public synchronized boolean contains(long orderId) {
+        int slot = find(orderId);
+        return keys[slot] == orderId && expiresAt[slot] > clock.getAsLong();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${deliveryco.cancellations.sweep-interval-ms:60000}")
+    public synchronized void sweepExpired() {
+        int before = size;
+        sweep(clock.getAsLong());
+        if (before != size) {
+            log.debug("[DeliveryCo] Evicted {} expired cancellations", before - size);
+        }
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int find(long orderId) {
+        int mask = keys.length - 1;
+        int slot = homeSlot(orderId);
+        while (keys[slot] != EMPTY && keys[slot] != orderId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Fibonacci hashing: sequential order ids spread over the whole table
+    int homeSlot(long orderId) {
+        return (int) ((orderId * 0x9E3779B97F4A7C15L) >>> hashShift);
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    // Rebuilds the table without expired entries; linear probing has no cheap single delete
+    private void sweep(long now) {
+        boolean anyExpired = false;
+        for (int i = 0; i < keys.length && !anyExpired; i++) {
+            anyExpired = keys[i] != EMPTY && expiresAt[i] <= now;
+        }
+        if (!anyExpired) {
+            return;
+        }
+        long[] oldKeys = keys;
+        long[] oldExpiresAt = expiresAt;
+        keys = new long[oldKeys.length];
+        expiresAt = new long[oldKeys.length];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldExpiresAt[i] > now) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                expiresAt[slot] = oldExpiresAt[i];
+                size++;
+            }
+        }
+    }
+
+    private void evictSoonestToExpire() {
+        int victim = -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && (victim < 0 || expiresAt[i] < expiresAt[victim])) {
+                victim = i;
+            }
+        }
+        // Expire it and rebuild, which drops it and keeps the probe chains intact
+        expiresAt[victim] = Long.MIN_VALUE;
+        sweep(clock.getAsLong());
+    }
+}
@@ -0,0 +1,194 @@
+package com.comp5348.deliveryco.service;
+
+import com.comp5348.contracts.DeliveryStatus;
+import com.comp5348.deliveryco.messaging.StatusPublisher;
+import com.comp5348.deliveryco.model.CourierRun;
+import com.comp5348.deliveryco.repository.CourierRunRepository;
+import com.comp5348.deliveryco.repository.ShipmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.comp5348.contracts.DeliveryStatus.State.*;
+
+// Groups pending shipments by warehouse into courier runs and moves each run as a unit.
+// A run is closed once a warehouse has a full run's worth of pending shipments, or its oldest
+// pending shipment has waited out the batching window. From then on the run carries the
+// timeline: each transition is one UPDATE over the run's shipments plus one batch of statuses,
+// instead of a row lock, a save and a publish per shipment.
+// Cancelled shipments are excluded by the UPDATEs themselves, so a run never resurrects one.
+//
+// Metrics: deliveryco.runs.closed (by reason), deliveryco.runs.size,
+//          deliveryco.runs.transition (by state), deliveryco.runs.shipments.advanced
+@Slf4j
+@Service
+public class CourierRunService {
+
+    private final CourierRunRepository courierRunRepository;
+    private final ShipmentRepository shipmentRepository;
+    private final StatusPublisher statusPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final long windowMs;
+    private final int batchSize;
+    private final long pickupDelayMs;
+    private final long transitDelayMs;
+    private final double lostProbability;
+
+    private final MeterRegistry registry;
+    private final DistributionSummary runSize;
+    private final Counter shipmentsAdvanced;
+
+    public CourierRunService(CourierRunRepository courierRunRepository,
+                             ShipmentRepository shipmentRepository,
+                             StatusPublisher statusPublisher,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry registry,
+                             @Value("${deliveryco.runs.enabled:true}") boolean enabled,
+                             @Value("${deliveryco.runs.capacity:100}") int capacity,
+                             @Value("${deliveryco.runs.window-ms:5000}") long windowMs,
+                             @Value("${deliveryco.runs.batch-size:50}") int batchSize,
+                             @Value("${deliveryco.delivery.pickup-delay-ms:20000}") long pickupDelayMs,
+                             @Value("${deliveryco.delivery.transit-delay-ms:5000}") long transitDelayMs,
+                             @Value("${deliveryco.delivery.lost-probability:0.05}") double lostProbability) {
+        this.courierRunRepository = courierRunRepository;
+        this.shipmentRepository = shipmentRepository;
+        this.statusPublisher = statusPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.windowMs = windowMs;
+        this.batchSize = batchSize;
+        this.pickupDelayMs = pickupDelayMs;
+        this.transitDelayMs = transitDelayMs;
+        this.lostProbability = lostProbability;
+
+        this.registry = registry;
+        this.runSize = DistributionSummary.builder("deliveryco.runs.size")
+                .description("Shipments per closed courier run").register(registry);
+        this.shipmentsAdvanced = Counter.builder("deliveryco.runs.shipments.advanced")
+                .description("Shipments advanced as part of a courier run").register(registry);
+    }
+
+    // When disabled, new shipments get their own timeline entry and the per-shipment poller moves them
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${deliveryco.timeline.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            if (enabled) {
+                closeRuns();
+            }
+            // Runs already closed are finished even after batching is switched off
+            int claimed;
+            do {
+                claimed = advanceDueRuns();
+            } while (claimed == batchSize);
+        } catch (Exception e) {
+            log.error("[DeliveryCo] Courier run poll failed: {}", e.getMessage());
+        }
+    }
+
+    // Closes runs until no warehouse is ready; a full run may leave enough behind for another
+    void closeRuns() {
+        boolean anyFull;
+        do {
+            anyFull = false;
+            LocalDateTime windowStart = LocalDateTime.now().minus(windowMs, ChronoUnit.MILLIS);
+            for (String warehouse : shipmentRepository.findWarehousesReadyForRun(capacity, windowStart)) {
+                Integer size = transactionTemplate.execute(tx -> closeRun(warehouse));
+                anyFull |= size != null && size == capacity;
+            }
+        } while (anyFull);
+    }
+
+    private int closeRun(String warehouse) {
+        List<Long> orderIds = shipmentRepository.claimPendingForRun(warehouse, capacity);
+        if (orderIds.isEmpty()) {
+            // Another instance took them
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CourierRun run = new CourierRun();
+        run.setWarehouseLocation(warehouse);
+        run.setCurrentState("REQUESTED");
+        run.setShipmentCount(orderIds.size());
+        run.setCreatedAt(now);
+        // Simulate processing time before the courier picks the run up
+        run.setNextTransitionAt(now.plus(pickupDelayMs, ChronoUnit.MILLIS));
+        courierRunRepository.saveAndFlush(run);
+        shipmentRepository.assignRun(run.getId(), orderIds);
+
+        String reason = orderIds.size() == capacity ? "capacity" : "window";
+        Counter.builder("deliveryco.runs.closed")
+                .tag("reason", reason)
+                .description("Courier runs closed").register(registry).increment();
+        runSize.record(orderIds.size());
+        log.info("[DeliveryCo] Courier run {} closed at '{}' with {} shipments ({})",
+                run.getId(), warehouse, orderIds.size(), reason);
+        return orderIds.size();
+    }
+
+    // Claims up to batchSize due runs with SKIP LOCKED and advances each one step.
+    // As with single shipments, statuses are published before the commit.
+    // Returns the number of runs claimed.
+    int advanceDueRuns() {
+        Integer claimed = transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CourierRun> due = courierRunRepository.claimDue(now, batchSize);
+            for (CourierRun run : due) {
+                Timer.Sample sample = Timer.start(registry);
+                String from = run.getCurrentState();
+                advance(run, now);
+                sample.stop(Timer.builder("deliveryco.runs.transition")
+                        .tag("from", from)
+                        .description("Time to advance one courier run, update and publish included")
+                        .register(registry));
+            }
+            courierRunRepository.saveAll(due);
+            return due.size();
+        });
+        return claimed != null ? claimed : 0;
+    }
+
+    private void advance(CourierRun run, LocalDateTime now) {
+        List<DeliveryStatus> statuses;
+        if ("REQUESTED".equals(run.getCurrentState())) {
+            statuses = shipmentRepository.pickUpRun(run.getId(), now).stream()
+                    .map(orderId -> new DeliveryStatus(orderId, IN_TRANSIT, "Package picked up by courier"))
+                    .toList();
+            run.setCurrentState("IN_TRANSIT");
+            // Simulate delivery time
+            run.setNextTransitionAt(now.plus(transitDelayMs, ChronoUnit.MILLIS));
+        } else if ("IN_TRANSIT".equals(run.getCurrentState())) {
+            statuses = shipmentRepository.deliverRun(run.getId(), now,
+                            DeliveryOutcome.lostThreshold(lostProbability)).stream()
+                    .map(outcome -> "LOST".equals(outcome.getCurrentState())
+                            ? new DeliveryStatus(outcome.getOrderId(), LOST, "Package lost in transit")
+                            : new DeliveryStatus(outcome.getOrderId(), DELIVERED, "Package delivered successfully"))
+                    .toList();
+            run.setCurrentState("DONE");
+            run.setNextTransitionAt(null);
+        } else {
+            run.setNextTransitionAt(null);
+            return;
+        }
+        statusPublisher.publishAll(statuses);
+        shipmentsAdvanced.increment(statuses.size());
+        log.info("[DeliveryCo] Courier run {} now {} ({} of {} shipments)",
+                run.getId(), run.getCurrentState(), statuses.size(), run.getShipmentCount());
+    }
+}
@@ -0,0 +1,25 @@
+package com.comp5348.deliveryco.service;
+
+// Whether a shipment gets lost, decided by its order id rather than drawn at random.
+// Statuses are published before their transaction commits; if the commit fails, the shipment is
+// advanced again and must come out the same way, or the Store (which already acted on LOST)
+// and DeliveryCo would disagree. Golden-ratio hashing modulo a prime spreads sequential ids
+// evenly, so the configured share of orders is lost without any pattern in consecutive ids.
+// ShipmentRepository.deliverRun computes the same hash in SQL for whole courier runs.
+public final class DeliveryOutcome {
+
+    public static final long MODULUS = 1_000_003L;
+    public static final long MULTIPLIER = 618_034L;
+
+    private DeliveryOutcome() {
+    }
+
+    // Hash values below this are lost
+    public static long lostThreshold(double lostProbability) {
+        return Math.round(lostProbability * MODULUS);
+    }
+
+    public static boolean isLost(long orderId, double lostProbability) {
+        return Math.floorMod(orderId, MODULUS) * MULTIPLIER % MODULUS < lostThreshold(lostProbability);
+    }
+}
@@ -2,32 +2,63 @@ package com.comp5348.deliveryco.service;
 
 import com.comp5348.contracts.DeliveryRequest;
 import com.comp5348.contracts.DeliveryStatus;
+import com.comp5348.deliveryco.messaging.StatusPublisher;
 import com.comp5348.deliveryco.model.Shipment;
 import com.comp5348.deliveryco.repository.ShipmentRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static com.comp5348.contracts.DeliveryStatus.State.*;
-import static com.comp5348.deliveryco.config.RabbitMQConfig.RK_DELIVERY_STATUS;
-import static com.comp5348.deliveryco.config.RabbitMQConfig.STATUS_EXCHANGE;
+import static com.comp5348.deliveryco.config.RabbitMQConfig.CANCEL_BROADCAST_EXCHANGE;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DeliveryService {
 
-    private final RabbitTemplate rabbitTemplate;
     private final ShipmentRepository shipmentRepository;
-    private final Set<Long> cancelledOrders = ConcurrentHashMap.newKeySet();
+    private final StatusPublisher statusPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long pickupDelayMs;
+    private final long transitDelayMs;
+    private final double lostProbability;
+    private final int batchSize;
+    private final CancellationRegistry cancellationRegistry;
+    private final RabbitTemplate rabbitTemplate;
+    private final CourierRunService courierRunService;
+
+    public DeliveryService(ShipmentRepository shipmentRepository,
+                           StatusPublisher statusPublisher,
+                           TransactionTemplate transactionTemplate,
+                           CancellationRegistry cancellationRegistry,
+                           RabbitTemplate rabbitTemplate,
+                           CourierRunService courierRunService,
+                           @Value("${deliveryco.delivery.pickup-delay-ms:20000}") long pickupDelayMs,
+                           @Value("${deliveryco.delivery.transit-delay-ms:5000}") long transitDelayMs,
+                           @Value("${deliveryco.delivery.lost-probability:0.05}") double lostProbability,
+                           @Value("${deliveryco.timeline.batch-size:500}") int batchSize) {
+        this.shipmentRepository = shipmentRepository;
+        this.statusPublisher = statusPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.cancellationRegistry = cancellationRegistry;
+        this.rabbitTemplate = rabbitTemplate;
+        this.courierRunService = courierRunService;
+        this.pickupDelayMs = pickupDelayMs;
+        this.transitDelayMs = transitDelayMs;
+        this.lostProbability = lostProbability;
+        this.batchSize = batchSize;
+    }
 
     @Transactional
     public void handleNewRequest(DeliveryRequest request) {
@@ -47,70 +78,90 @@ public class DeliveryService {
             newShipment.setOrderId(orderId);
             return newShipment;
         });
+        // The cancel may have reached another node first, or been evicted from memory
+        if (shipment.isCancelled()) {
+            log.warn("[DeliveryCo] Ignoring delivery request for already-cancelled order {}", orderId);
+            return;
+        }
+        // A redelivered request must not send a shipment that already left back to the warehouse
+        if (shipment.getCurrentState() != null && !"REQUESTED".equals(shipment.getCurrentState())) {
+            log.warn("[DeliveryCo] Ignoring repeated delivery request for order {} already {}",
+                    orderId, shipment.getCurrentState());
+            return;
+        }
 
         shipment.setWarehouseLocation(request.getWarehouseLocation());
         shipment.setDeliveryAddress(request.getDeliveryAddress());
         shipment.setCancelled(false);
         shipment.setCurrentState("REQUESTED");
         shipment.setLastUpdateTime(LocalDateTime.now());
+        // A repeated request starts over, outside whatever run it was in
+        shipment.setRunId(null);
+        if (courierRunService.isEnabled()) {
+            // Pending until a courier run for its warehouse closes
+            shipment.setNextTransitionAt(null);
+        } else {
+            // Simulate processing time before transit; the timeline poller picks the shipment up when due
+            shipment.setNextTransitionAt(shipment.getLastUpdateTime().plus(pickupDelayMs, ChronoUnit.MILLIS));
+        }
         shipmentRepository.save(shipment);
-
-        // Trigger the async delivery processing
-        processDelivery(orderId);
     }
 
-    @Async
-    @Transactional
-    public void processDelivery(Long orderId) {
-        try {
-            // Simulate processing time before transit
-            Thread.sleep(20000);
-
-            if (isCancelled(orderId)) {
-                log.warn("[DeliveryCo] Delivery process for order {} aborted; already cancelled.", orderId);
-                return;
+    // Claims up to batchSize due shipments and advances each one step of the state machine:
+    // REQUESTED -> IN_TRANSIT -> DELIVERED/LOST. Rows are claimed with SKIP LOCKED, so several
+    // DeliveryCo instances share the work, and a crashed instance's rows are free again as soon
+    // as its transaction is gone. Statuses are published before the commit: a failed commit may
+    // repeat a status, but a crash can never lose one. A repeat is always identical, since the
+    // final outcome is fixed per order (DeliveryOutcome).
+    // Returns the number of shipments claimed.
+    public int advanceDueShipments() {
+        Integer claimed = transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Shipment> due = shipmentRepository.claimDue(now, batchSize);
+            List<DeliveryStatus> statuses = new ArrayList<>(due.size());
+            for (Shipment shipment : due) {
+                DeliveryStatus next = advance(shipment, now);
+                if (next != null) {
+                    statuses.add(next);
+                }
             }
+            shipmentRepository.saveAll(due);
+            shipmentRepository.flush();
+            statusPublisher.publishAll(statuses);
+            return due.size();
+        });
+        return claimed != null ? claimed : 0;
+    }
 
-            // Mark as IN_TRANSIT
-            Shipment shipment = shipmentRepository.findById(orderId)
-                    .orElseThrow(() -> new RuntimeException("Shipment not found"));
-
-            shipment.setCurrentState("IN_TRANSIT");
-            shipment.setLastUpdateTime(LocalDateTime.now());
-            shipmentRepository.save(shipment);
-
-            rabbitTemplate.convertAndSend(STATUS_EXCHANGE, RK_DELIVERY_STATUS,
-                    new DeliveryStatus(orderId, IN_TRANSIT, "Package picked up by courier"));
-            log.info("[DeliveryCo → Store] Order {} marked IN_TRANSIT", orderId);
+    private DeliveryStatus advance(Shipment shipment, LocalDateTime now) {
+        Long orderId = shipment.getOrderId();
+        if (shipment.isCancelled() || isCancelled(orderId)) {
+            log.warn("[DeliveryCo] Delivery process for order {} aborted; already cancelled.", orderId);
+            shipment.setNextTransitionAt(null);
+            return null;
+        }
 
+        DeliveryStatus next;
+        if ("REQUESTED".equals(shipment.getCurrentState())) {
+            next = new DeliveryStatus(orderId, IN_TRANSIT, "Package picked up by courier");
             // Simulate delivery time
-            Thread.sleep(5000);
-
-            // Check for cancellation during transit
-            if (isCancelled(orderId)) {
-                log.warn("[DeliveryCo] Final status update skipped for order {} (cancelled by Store)", orderId);
-                return;
-            }
-
+            shipment.setNextTransitionAt(now.plus(transitDelayMs, ChronoUnit.MILLIS));
+        } else if ("IN_TRANSIT".equals(shipment.getCurrentState())) {
             // Determine final state (LOST or DELIVERED)
-            boolean lost = Math.random() < 0.05;
-            DeliveryStatus.State finalState = lost ? LOST : DELIVERED;
-            String note = lost ? "Package lost in transit" : "Package delivered successfully";
-
-            shipment.setCurrentState(lost ? "LOST" : "DELIVERED");
-            shipment.setLastUpdateTime(LocalDateTime.now());
-            shipmentRepository.save(shipment);
-
-            rabbitTemplate.convertAndSend(STATUS_EXCHANGE, RK_DELIVERY_STATUS,
-                    new DeliveryStatus(orderId, finalState, note));
-            log.info("[DeliveryCo → Store] Order {} marked {}", orderId, finalState);
-
-        } catch (InterruptedException e) {
-            log.error("Delivery process for order {} was interrupted", orderId, e);
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            log.error("Error processing delivery for order {}", orderId, e);
+            // Same outcome on every attempt, so a status published before a failed commit never changes
+            boolean lost = DeliveryOutcome.isLost(orderId, lostProbability);
+            next = lost
+                    ? new DeliveryStatus(orderId, LOST, "Package lost in transit")
+                    : new DeliveryStatus(orderId, DELIVERED, "Package delivered successfully");
+            shipment.setNextTransitionAt(null);
+        } else {
+            // Final or unknown state, nothing left to do
+            shipment.setNextTransitionAt(null);
+            return null;
         }
+        shipment.setCurrentState(next.getState().name());
+        shipment.setLastUpdateTime(now);
+        return next;
     }
 
     @Transactional(readOnly = true)
@@ -120,7 +171,6 @@ public class DeliveryService {
 
     @Transactional
     public void cancel(Long orderId) {
-        cancelledOrders.add(orderId);
         Shipment shipment = shipmentRepository.findById(orderId).orElseGet(() -> {
             Shipment newShipment = new Shipment();
             newShipment.setOrderId(orderId);
@@ -129,11 +179,22 @@ public class DeliveryService {
 
         shipment.setCancelled(true);
         shipment.setCurrentState("CANCELLED");
+        shipment.setNextTransitionAt(null);
         shipment.setLastUpdateTime(LocalDateTime.now());
         shipmentRepository.save(shipment);
+
+        // Remember it here and tell every other node once the cancellation is durable;
+        // a rolled-back cancel must not suppress the shipment
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cancellationRegistry.add(orderId);
+                rabbitTemplate.convertAndSend(CANCEL_BROADCAST_EXCHANGE, "", orderId);
+            }
+        });
     }
 
     public boolean isCancelled(Long orderId) {
-        return cancelledOrders.contains(orderId);
+        return cancellationRegistry.contains(orderId);
     }
 }
\ No newline at end of file
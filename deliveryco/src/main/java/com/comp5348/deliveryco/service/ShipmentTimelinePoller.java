@@ -0,0 +1,71 @@
+package com.comp5348.deliveryco.service;
+
+import com.comp5348.deliveryco.repository.ShipmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Advances due shipments from the durable timeline (shipment.next_transition_at).
+// Nothing about a shipment's progress lives in memory, so a restart resumes where the
+// database says, and any number of instances can poll the same table.
+//
+// Metrics: deliveryco.timeline.advanced (shipments claimed and advanced)
+@Slf4j
+@Component
+public class ShipmentTimelinePoller {
+
+    private final DeliveryService deliveryService;
+    private final ShipmentRepository shipmentRepository;
+    private final CourierRunService courierRunService;
+    private final int batchSize;
+    private final Counter advanced;
+
+    public ShipmentTimelinePoller(DeliveryService deliveryService,
+                                  ShipmentRepository shipmentRepository,
+                                  CourierRunService courierRunService,
+                                  MeterRegistry registry,
+                                  @Value("${deliveryco.timeline.batch-size:500}") int batchSize) {
+        this.deliveryService = deliveryService;
+        this.shipmentRepository = shipmentRepository;
+        this.courierRunService = courierRunService;
+        this.batchSize = batchSize;
+        this.advanced = Counter.builder("deliveryco.timeline.advanced")
+                .description("Shipments advanced by the timeline poller").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void resumeUntimedShipments() {
+        // With courier runs on, untimed REQUESTED shipments are simply batched into the next run
+        List<String> states = courierRunService.isEnabled()
+                ? List.of("IN_TRANSIT")
+                : List.of("REQUESTED", "IN_TRANSIT");
+        int resumed = shipmentRepository.scheduleUntimed(LocalDateTime.now(), states);
+        if (resumed > 0) {
+            log.info("[DeliveryCo] Resumed {} in-flight shipments without a timeline entry", resumed);
+        }
+    }
+
+    // Drains every full batch, then waits for the next poll
+    @Scheduled(fixedDelayString = "${deliveryco.timeline.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            int claimed;
+            do {
+                claimed = deliveryService.advanceDueShipments();
+                advanced.increment(claimed);
+            } while (claimed == batchSize);
+        } catch (Exception e) {
+            log.error("[DeliveryCo] Timeline poll failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.comp5348.deliveryco.service;
+
+import com.comp5348.deliveryco.repository.ShipmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CancellationRegistryTest {
+
+    private static final long TTL_MS = 1_000;
+
+    private final AtomicLong now = new AtomicLong(0);
+
+    private CancellationRegistry registry(int maxEntries) {
+        return new CancellationRegistry(mock(ShipmentRepository.class), new SimpleMeterRegistry(),
+                maxEntries, TTL_MS, now::get);
+    }
+
+    // Order ids whose home slot is the given one, in ascending order
+    private static List<Long> idsHomedAt(CancellationRegistry registry, int slot, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; ids.size() < count; id++) {
+            if (registry.homeSlot(id) == slot) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @BeforeEach
+    void resetClock() {
+        now.set(0);
+    }
+
+    @Test
+    void probingWrapsAroundTheEndOfTheTable() {
+        CancellationRegistry registry = registry(8);
+        int last = registry.capacity() - 1;
+        long atStart = idsHomedAt(registry, 0, 1).get(0);
+        List<Long> atEnd = idsHomedAt(registry, last, 3);
+
+        // Slot 0 is taken, so the collisions at the last slot continue from slot 1
+        registry.add(atStart);
+        atEnd.forEach(registry::add);
+
+        assertThat(registry.size()).isEqualTo(4);
+        assertThat(registry.contains(atStart)).isTrue();
+        atEnd.forEach(id -> assertThat(registry.contains(id)).isTrue());
+        assertThat(registry.contains(idsHomedAt(registry, last, 4).get(3))).isFalse();
+    }
+
+    @Test
+    void sweepKeepsWrappedProbeChainsReachable() {
+        CancellationRegistry registry = registry(8);
+        List<Long> atEnd = idsHomedAt(registry, registry.capacity() - 1, 3);
+
+        registry.add(atEnd.get(0));
+        now.set(500);
+        registry.add(atEnd.get(1));
+        registry.add(atEnd.get(2));
+
+        // The head of the chain expires; the rebuild must not strand the entries behind it
+        now.set(TTL_MS);
+        registry.sweepExpired();
+
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.contains(atEnd.get(0))).isFalse();
+        assertThat(registry.contains(atEnd.get(1))).isTrue();
+        assertThat(registry.contains(atEnd.get(2))).isTrue();
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        CancellationRegistry registry = registry(8);
+        registry.add(42);
+
+        now.set(TTL_MS - 1);
+        assertThat(registry.contains(42)).isTrue();
+
+        now.set(TTL_MS);
+        assertThat(registry.contains(42)).isFalse();
+        // Expired but not yet swept
+        assertThat(registry.size()).isEqualTo(1);
+
+        registry.sweepExpired();
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    void addingAgainRefreshesTheTtl() {
+        CancellationRegistry registry = registry(8);
+        registry.add(42);
+
+        now.set(TTL_MS - 1);
+        registry.add(42);
+        now.set(TTL_MS + 1);
+
+        assertThat(registry.contains(42)).isTrue();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void fullTableEvictsTheEntryClosestToExpiry() {
+        CancellationRegistry registry = registry(4);
+        for (long id = 1; id <= 4; id++) {
+            now.set(id * 10);
+            registry.add(id);
+        }
+
+        now.set(50);
+        registry.add(5);
+
+        assertThat(registry.size()).isEqualTo(4);
+        assertThat(registry.contains(1)).isFalse();
+        for (long id = 2; id <= 5; id++) {
+            assertThat(registry.contains(id)).isTrue();
+        }
+    }
+
+    @Test
+    void fullTableDropsExpiredEntriesBeforeEvictingLiveOnes() {
+        CancellationRegistry registry = registry(4);
+        registry.add(1);
+        now.set(500);
+        for (long id = 2; id <= 4; id++) {
+            registry.add(id);
+        }
+
+        // 1 has expired; making room must drop it and keep every live entry
+        now.set(TTL_MS + 100);
+        registry.add(5);
+
+        assertThat(registry.size()).isEqualTo(4);
+        assertThat(registry.contains(1)).isFalse();
+        for (long id = 2; id <= 5; id++) {
+            assertThat(registry.contains(id)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.comp5348.deliveryco.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DeliveryOutcomeTest {
+
+    @Test
+    void sequentialOrdersAreLostAtTheConfiguredRate() {
+        int orders = 100_000;
+        int lost = 0;
+        int longestLostStreak = 0;
+        int streak = 0;
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            if (DeliveryOutcome.isLost(orderId, 0.05)) {
+                lost++;
+                streak++;
+                longestLostStreak = Math.max(longestLostStreak, streak);
+            } else {
+                streak = 0;
+            }
+        }
+        assertThat(lost / (double) orders).isCloseTo(0.05, within(0.002));
+        assertThat(longestLostStreak).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void outcomeIsTheSameOnEveryCall() {
+        for (long orderId = 1; orderId <= 1_000; orderId++) {
+            assertThat(DeliveryOutcome.isLost(orderId, 0.3)).isEqualTo(DeliveryOutcome.isLost(orderId, 0.3));
+        }
+    }
+
+    @Test
+    void extremeProbabilities() {
+        for (long orderId = 1; orderId <= 1_000; orderId++) {
+            assertThat(DeliveryOutcome.isLost(orderId, 0.0)).isFalse();
+            assertThat(DeliveryOutcome.isLost(orderId, 1.0)).isTrue();
+        }
+    }
+}
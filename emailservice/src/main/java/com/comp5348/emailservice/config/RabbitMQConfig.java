@@ -4,8 +4,10 @@ import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitMQConfig {
@@ -23,11 +25,16 @@ public class RabbitMQConfig {
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
             ConnectionFactory connectionFactory,
-            Jackson2JsonMessageConverter converter
+            Jackson2JsonMessageConverter converter,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
     ) {
         SimpleRabbitListenerContainerFactory f = new SimpleRabbitListenerContainerFactory();
         f.setConnectionFactory(connectionFactory);
         f.setMessageConverter(converter);
+        // A custom factory is not covered by Boot's virtual-thread support, so opt in here
+        if (virtualThreads) {
+            f.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-listener-"));
+        }
         // concurrent
         f.setConcurrentConsumers(2);
         f.setMaxConcurrentConsumers(8);
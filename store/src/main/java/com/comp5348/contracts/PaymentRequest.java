@@ -18,4 +18,10 @@ public class PaymentRequest {
     private String customerAccountId;
     private double amount;
     private Type type;
+    // 1 for the first request of this type for the order; a deliberate retry sends the next number
+    private int attempt = 1;
+
+    public PaymentRequest(Long orderId, Long storeAccountId, String customerAccountId, double amount, Type type) {
+        this(orderId, storeAccountId, customerAccountId, amount, type, 1);
+    }
 }
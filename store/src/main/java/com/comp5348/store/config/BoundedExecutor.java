@@ -0,0 +1,131 @@
+package com.comp5348.store.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor for the store's blocking background I/O (DB continuations, streamed downloads).
+// Runs at most maxConcurrency tasks at once and queues at most queueCapacity more; beyond that
+// the rejection policy applies. Tasks run either on a platform thread pool or on one virtual
+// thread per task, in which case the concurrency bound protects the DB pool and the broker.
+//
+// Metrics (tag executor=<name>): store.executor.queued, store.executor.active,
+// store.executor.queue.wait, store.executor.run, store.executor.rejected
+@Slf4j
+public class BoundedExecutor implements Executor, DisposableBean {
+
+    public enum RejectionPolicy { ABORT, CALLER_RUNS }
+
+    private final String name;
+    private final boolean virtualThreads;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+
+    private final ExecutorService delegate;
+    private final Semaphore running;
+    // Accepted tasks that have not finished yet, waiting or running
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer queueWait;
+    private final Timer runTime;
+    private final Counter rejected;
+
+    public BoundedExecutor(String name, boolean virtualThreads, int maxConcurrency, int queueCapacity,
+                           RejectionPolicy rejectionPolicy, MeterRegistry registry) {
+        this.name = name;
+        this.virtualThreads = virtualThreads;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.running = new Semaphore(maxConcurrency);
+        this.delegate = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory())
+                : Executors.newFixedThreadPool(maxConcurrency, Thread.ofPlatform().name(name + "-", 0).daemon().factory());
+
+        Gauge.builder("store.executor.queued", this, BoundedExecutor::queued)
+                .tag("executor", name).description("Tasks accepted but not started").register(registry);
+        Gauge.builder("store.executor.active", this, BoundedExecutor::active)
+                .tag("executor", name).description("Tasks currently running").register(registry);
+        this.queueWait = Timer.builder("store.executor.queue.wait")
+                .tag("executor", name).description("Time from submit to start").register(registry);
+        this.runTime = Timer.builder("store.executor.run")
+                .tag("executor", name).description("Task execution time").register(registry);
+        this.rejected = Counter.builder("store.executor.rejected")
+                .tag("executor", name).description("Tasks refused because the executor was full").register(registry);
+
+        log.info("[Store] Executor {} started: {} threads, max {} running, {} queued, {} when full",
+                name, virtualThreads ? "virtual" : "platform", maxConcurrency, queueCapacity, rejectionPolicy);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (inFlight.incrementAndGet() > maxConcurrency + queueCapacity) {
+            inFlight.decrementAndGet();
+            reject(task);
+            return;
+        }
+        long submittedAt = System.nanoTime();
+        try {
+            delegate.execute(() -> runBounded(task, submittedAt));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void runBounded(Runnable task, long submittedAt) {
+        try {
+            // Only blocks in virtual mode; a fixed pool never has more runners than permits
+            running.acquireUninterruptibly();
+            try {
+                queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                runTime.record(task);
+            } finally {
+                running.release();
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void reject(Runnable task) {
+        rejected.increment();
+        if (rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+            // Back-pressure: the submitting thread does the work itself.
+            // Never use this for work submitted from a listener or other shared thread.
+            runTime.record(task);
+            return;
+        }
+        throw new RejectedExecutionException("Executor " + name + " is full ("
+                + maxConcurrency + " running, " + queueCapacity + " queued)");
+    }
+
+    public int active() {
+        return maxConcurrency - running.availablePermits();
+    }
+
+    public int queued() {
+        return Math.max(0, inFlight.get() - active());
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("[Store] Executor {} did not finish {} tasks before shutdown", name, inFlight.get());
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.comp5348.store.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ExecutorConfig {
+
+    public static final String STORE_IO_EXECUTOR = "storeIoExecutor";
+    public static final String STORE_EXPORT_EXECUTOR = "storeExportExecutor";
+
+    // Background I/O: payment continuations, never the common ForkJoinPool.
+    // Aborts when full; OrderService retries the hand-off instead of running on the reply listener.
+    @Bean(name = STORE_IO_EXECUTOR)
+    public BoundedExecutor storeIoExecutor(
+            @Value("${store.executor.virtual-threads:false}") boolean virtualThreads,
+            @Value("${store.executor.max-concurrency:32}") int maxConcurrency,
+            @Value("${store.executor.queue-capacity:500}") int queueCapacity,
+            @Value("${store.executor.rejection-policy:abort}") String rejectionPolicy,
+            MeterRegistry meterRegistry) {
+        return new BoundedExecutor("store-io", virtualThreads, maxConcurrency, queueCapacity,
+                BoundedExecutor.RejectionPolicy.valueOf(rejectionPolicy.toUpperCase().replace('-', '_')),
+                meterRegistry);
+    }
+
+    // Streamed exports can run for many minutes, so they get their own small pool
+    // and cannot starve payment continuations
+    @Bean(name = STORE_EXPORT_EXECUTOR)
+    public BoundedExecutor storeExportExecutor(
+            @Value("${store.executor.virtual-threads:false}") boolean virtualThreads,
+            @Value("${store.export.max-concurrency:4}") int maxConcurrency,
+            @Value("${store.export.queue-capacity:16}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        return new BoundedExecutor("store-export", virtualThreads, maxConcurrency, queueCapacity,
+                BoundedExecutor.RejectionPolicy.ABORT, meterRegistry);
+    }
+
+    // StreamingResponseBody work runs on the export pool instead of on a default pool
+    @Bean
+    public WebMvcConfigurer asyncSupportConfigurer(@Qualifier(STORE_EXPORT_EXECUTOR) BoundedExecutor storeExportExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(storeExportExecutor));
+            }
+        };
+    }
+}
@@ -1,12 +1,15 @@
 package com.comp5348.store.config;
 
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 
 @Configuration
 public class RabbitMQConfig {
@@ -16,6 +19,7 @@ public class RabbitMQConfig {
     public static final String DELIVERY_EXCHANGE = "delivery.exchange";
     public static final String EMAIL_EXCHANGE = "email.exchange";
     public static final String STATUS_EXCHANGE = "status.exchange";
+    public static final String CANCEL_EXCHANGE = "cancel.exchange";
 
     // queue
     public static final String BANK_QUEUE = "bank.queue";
@@ -23,12 +27,18 @@ public class RabbitMQConfig {
     public static final String DELIVERY_QUEUE = "delivery.queue";
     public static final String EMAIL_QUEUE = "email.queue";
     public static final String STATUS_DELIVERY_QUEUE = "status.delivery.queue";
+    public static final String STATUS_DELIVERY_BATCH_QUEUE = "status.delivery.batch.queue";
 
     // routing keys
     public static final String RK_BANK_REQUEST = "bank.request";
     public static final String RK_DELIVERY_REQUEST = "delivery.request";
     public static final String RK_EMAIL_REQUEST = "email.request";
     public static final String RK_DELIVERY_STATUS = "delivery.status";
+    public static final String RK_DELIVERY_STATUS_BATCH = "delivery.status.batch";
+    public static final String RK_ORDER_CANCELLED = "order.cancelled";
+
+    // bank RPC reply timeout
+    public static final long PAYMENT_REPLY_TIMEOUT = 10000; // 10 seconds
 
     // exchange usage
     @Bean
@@ -57,6 +67,7 @@ public class RabbitMQConfig {
     @Bean public Queue deliveryQueue()    { return QueueBuilder.durable(DELIVERY_QUEUE).build(); }
     @Bean public Queue emailQueue()       { return QueueBuilder.durable(EMAIL_QUEUE).build(); }
     @Bean public Queue statusQueue()      { return QueueBuilder.durable(STATUS_DELIVERY_QUEUE).build(); }
+    @Bean public Queue statusBatchQueue() { return QueueBuilder.durable(STATUS_DELIVERY_BATCH_QUEUE).build(); }
 
     // bindings
     @Bean public Binding bankBinding() {
@@ -71,6 +82,9 @@ public class RabbitMQConfig {
     @Bean public Binding statusBinding() {
         return BindingBuilder.bind(statusQueue()).to(statusExchange()).with(RK_DELIVERY_STATUS);
     }
+    @Bean public Binding statusBatchBinding() {
+        return BindingBuilder.bind(statusBatchQueue()).to(statusExchange()).with(RK_DELIVERY_STATUS_BATCH);
+    }
 
     @Bean
     public Jackson2JsonMessageConverter jackson2JsonMessageConverter() {
@@ -83,24 +97,35 @@ public class RabbitMQConfig {
                                          Jackson2JsonMessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter);
-        template.setReplyAddress(BANK_REPLY_QUEUE);
-        template.setReceiveTimeout(10000);            // 10s timeout
         return template;
     }
 
-    // listen container
+    // listen container, owned by the async template so replies are matched by correlation id
     @Bean
-    public SimpleMessageListenerContainer replyListenerContainer(ConnectionFactory connectionFactory,
-                                                                 RabbitTemplate rabbitTemplate) {
+    public SimpleMessageListenerContainer replyListenerContainer(
+            ConnectionFactory connectionFactory,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
         container.setQueueNames(BANK_REPLY_QUEUE);
-        container.setMessageListener(rabbitTemplate);
+        // Built by hand, so Boot's virtual-thread setting does not reach it
+        if (virtualThreads) {
+            container.setTaskExecutor(new VirtualThreadTaskExecutor("bank-reply-"));
+        }
         return container;
     }
 
+    // Async RPC: requests return a future instead of parking the caller until the bank replies
+    @Bean
+    public AsyncRabbitTemplate asyncRabbitTemplate(RabbitTemplate rabbitTemplate,
+                                                   SimpleMessageListenerContainer replyListenerContainer) {
+        AsyncRabbitTemplate template = new AsyncRabbitTemplate(rabbitTemplate, replyListenerContainer, BANK_REPLY_QUEUE);
+        template.setReceiveTimeout(PAYMENT_REPLY_TIMEOUT);
+        return template;
+    }
+
     @Bean
     public TopicExchange cancelExchange() {
-        return new TopicExchange("cancel.exchange", true, false);
+        return new TopicExchange(CANCEL_EXCHANGE, true, false);
     }
 
 }
@@ -1,21 +1,37 @@
 package com.comp5348.store.controller;
 
 import com.comp5348.store.model.Order;
+import com.comp5348.store.model.OrderStatus;
+import com.comp5348.store.service.OrderExportService;
 import com.comp5348.store.service.OrderService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.comp5348.store.dto.OrderPageDTO;
 import com.comp5348.store.dto.OrderResponseDTO;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CompletionException;
+
+import static com.comp5348.store.config.RabbitMQConfig.PAYMENT_REPLY_TIMEOUT;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    // bank reply timeout plus headroom for the completing transaction
+    private static final long PLACE_ORDER_TIMEOUT = PAYMENT_REPLY_TIMEOUT + 5000;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
     }
 
     // Place a new order
@@ -28,10 +44,56 @@ public class OrderController {
         return ResponseEntity.ok(dto);
     }
 
-    // View all orders
+    // Place a new order without holding the request thread while the bank processes payment
+    @PostMapping("/place/async")
+    public DeferredResult<ResponseEntity<OrderResponseDTO>> placeOrderAsync(
+            @RequestParam Long customerId,
+            @RequestParam Long productId,
+            @RequestParam int quantity) {
+        DeferredResult<ResponseEntity<OrderResponseDTO>> result = new DeferredResult<>(PLACE_ORDER_TIMEOUT);
+        orderService.placeOrderAsync(customerId, productId, quantity).whenComplete((dto, ex) -> {
+            if (ex != null) {
+                result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } else {
+                result.setResult(ResponseEntity.ok(dto));
+            }
+        });
+        return result;
+    }
+
+    // View orders, newest first, one keyset page at a time
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<OrderPageDTO> getOrders(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(orderService.getOrders(status, customerId, from, to, cursor, size));
+    }
+
+    // Export every order as NDJSON (default) or CSV, streamed on an async thread; 400 for any other format
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        OrderExportService.Format exportFormat = Arrays.stream(OrderExportService.Format.values())
+                .filter(f -> f.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElse(null);
+        if (exportFormat == null) {
+            // Unknown format is the caller's mistake, not a server error
+            return ResponseEntity.badRequest().build();
+        }
+        MediaType mediaType = exportFormat == OrderExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+        StreamingResponseBody body = out -> orderExportService.export(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
     }
 
     // View a specific order
@@ -0,0 +1,24 @@
+package com.comp5348.store.dto;
+
+import com.comp5348.store.model.Customer;
+import lombok.Value;
+
+// Immutable, cache-friendly view of the customer fields the order path needs
+@Value
+public class CustomerSnapshot {
+    Long id;
+    String firstName;
+    String lastName;
+    String email;
+    String address;
+    Long bankAccountId;
+
+    public static CustomerSnapshot from(Customer customer) {
+        return new CustomerSnapshot(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getAddress(), customer.getBankAccountId());
+    }
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
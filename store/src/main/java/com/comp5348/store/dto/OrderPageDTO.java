@@ -0,0 +1,16 @@
+package com.comp5348.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageDTO {
+    private List<OrderResponseDTO> orders;
+    // pass as ?cursor= to fetch the next page, null on the last page
+    private Long nextCursor;
+}
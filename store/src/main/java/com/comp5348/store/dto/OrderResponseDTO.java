@@ -19,6 +19,19 @@ public class OrderResponseDTO {
 
     public OrderResponseDTO() {}
 
+    // projection constructor used by OrderRepository.findOrderPage
+    public OrderResponseDTO(Long orderId, String firstName, String lastName, String productName, int quantity,
+                            double totalAmount, String deliveryAddress, OrderStatus status, LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.customerName = firstName + " " + lastName;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.totalAmount = totalAmount;
+        this.deliveryAddress = deliveryAddress;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+
     public OrderResponseDTO(Order order) {
         this.orderId = order.getId();
         this.customerName = order.getCustomer().getFirstName() + " " + order.getCustomer().getLastName();
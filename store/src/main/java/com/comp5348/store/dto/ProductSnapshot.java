@@ -0,0 +1,16 @@
+package com.comp5348.store.dto;
+
+import com.comp5348.store.model.Product;
+import lombok.Value;
+
+// Immutable, cache-friendly view of a product
+@Value
+public class ProductSnapshot {
+    Long id;
+    String name;
+    double price;
+
+    public static ProductSnapshot from(Product product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getPrice());
+    }
+}
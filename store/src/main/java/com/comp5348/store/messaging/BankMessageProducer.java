@@ -3,29 +3,52 @@ package com.comp5348.store.messaging;
 import com.comp5348.contracts.PaymentRequest;
 import com.comp5348.contracts.PaymentResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.core.Message;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.MessagePostProcessor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+
 import static com.comp5348.store.config.RabbitMQConfig.BANK_EXCHANGE;
 import static com.comp5348.store.config.RabbitMQConfig.RK_BANK_REQUEST;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class BankMessageProducer {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final AsyncRabbitTemplate asyncRabbitTemplate;
     private static final long MESSAGE_TTL = 10000; // 10 seconds
 
+    // Blocking variant, waits for the bank reply (null on timeout or failure)
     public PaymentResponse sendPayment(PaymentRequest request) {
+        return sendPaymentAsync(request).join();
+    }
+
+    // Non-blocking variant, the reply is matched to this request by correlation id.
+    // The future completes with null when the request cannot be sent or the bank does not answer
+    // in time, like the blocking call; it never throws.
+    public CompletableFuture<PaymentResponse> sendPaymentAsync(PaymentRequest request) {
         MessagePostProcessor messagePostProcessor = message -> {
             message.getMessageProperties().setExpiration(String.valueOf(MESSAGE_TTL));
             return message;
         };
 
-        return (PaymentResponse) rabbitTemplate.convertSendAndReceive(
-                BANK_EXCHANGE, RK_BANK_REQUEST, request, messagePostProcessor
-        );
+        CompletableFuture<PaymentResponse> reply;
+        try {
+            reply = asyncRabbitTemplate.convertSendAndReceive(
+                    BANK_EXCHANGE, RK_BANK_REQUEST, request, messagePostProcessor
+            );
+        } catch (Exception e) {
+            // The send itself failed (broker down, connection lost): nothing reached the bank,
+            // so the caller takes its no-reply path, e.g. the order fails and its stock is released
+            log.error("[Store → Bank] Payment request for order {} not sent: {}", request.getOrderId(), e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return reply.exceptionally(ex -> {
+            log.warn("[Store → Bank] No payment reply for order {}: {}", request.getOrderId(), ex.getMessage());
+            return null;
+        });
     }
 }
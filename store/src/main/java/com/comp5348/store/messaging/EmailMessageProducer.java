@@ -3,7 +3,6 @@ package com.comp5348.store.messaging;
 import com.comp5348.contracts.EmailRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
 import static com.comp5348.store.config.RabbitMQConfig.*;
@@ -13,10 +12,17 @@ import static com.comp5348.store.config.RabbitMQConfig.*;
 @RequiredArgsConstructor
 public class EmailMessageProducer {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final OutboxWriter outboxWriter;
 
+    // Sent by OutboxPublisher once the current transaction commits
     public void sendEmail(EmailRequest request) {
-        log.info("[Store → Email] Sending email request: {}", request);
-        rabbitTemplate.convertAndSend(EMAIL_EXCHANGE, RK_EMAIL_REQUEST, request);
+        log.info("[Store → Email] Queueing email request: {}", request);
+        outboxWriter.enqueue(EMAIL_EXCHANGE, RK_EMAIL_REQUEST, request);
+    }
+
+    // For emails about a failure that rolls back the current transaction
+    public void sendEmailIndependently(EmailRequest request) {
+        log.info("[Store → Email] Queueing email request outside the current transaction: {}", request);
+        outboxWriter.enqueueIndependently(EMAIL_EXCHANGE, RK_EMAIL_REQUEST, request);
     }
 }
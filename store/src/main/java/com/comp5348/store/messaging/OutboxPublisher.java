@@ -0,0 +1,159 @@
+package com.comp5348.store.messaging;
+
+import com.comp5348.store.model.OutboxMessage;
+import com.comp5348.store.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Drains the outbox table to RabbitMQ in batches. A row is marked published only after the
+// broker has confirmed it, so a crash or a broker outage leads to a resend, never to a lost message.
+// Consumers must tolerate the occasional duplicate (at-least-once).
+// A message that can never go out is dead-lettered so it cannot block the head of the outbox:
+// an unreadable payload at once, a message the broker keeps rejecting after max-attempts.
+// Broker outages (no connection, no confirm) are not counted against a message.
+@Slf4j
+@Component
+public class OutboxPublisher {
+
+    private final OutboxMessageRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final long retentionHours;
+    private final int maxAttempts;
+
+    public OutboxPublisher(OutboxMessageRepository outboxRepository,
+                           RabbitTemplate rabbitTemplate,
+                           ObjectMapper objectMapper,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${store.outbox.batch-size:100}") int batchSize,
+                           @Value("${store.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                           @Value("${store.outbox.retention-hours:24}") long retentionHours,
+                           @Value("${store.outbox.max-attempts:10}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.retentionHours = retentionHours;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Keep draining while batches come back full and clean, otherwise wait for the next tick
+    @Scheduled(fixedDelayString = "${store.outbox.poll-interval-ms:200}")
+    public void publishPending() {
+        Integer published;
+        do {
+            published = transactionTemplate.execute(status -> publishBatch());
+        } while (published != null && published == batchSize);
+    }
+
+    // Returns the number of confirmed messages, or 0 if any message in the batch failed
+    private int publishBatch() {
+        List<OutboxMessage> batch = outboxRepository.lockUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Send the whole batch first, then wait for the confirms, so the broker round trips overlap
+        Map<Long, CorrelationData> inFlight = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
+        // Failures that are the message's own fault, counted towards max-attempts
+        List<Long> rejected = new ArrayList<>();
+        List<Long> unreadable = new ArrayList<>();
+        for (OutboxMessage message : batch) {
+            Object payload;
+            try {
+                payload = objectMapper.readValue(message.getPayload(),
+                        ClassUtils.forName(message.getPayloadType(), getClass().getClassLoader()));
+            } catch (Exception e) {
+                log.error("[Store Outbox] Dead-lettering message {}: unreadable {} payload: {}",
+                        message.getId(), message.getPayloadType(), e.getMessage());
+                unreadable.add(message.getId());
+                continue;
+            }
+            try {
+                CorrelationData correlation = new CorrelationData(String.valueOf(message.getId()));
+                rabbitTemplate.convertAndSend(message.getExchange(), message.getRoutingKey(), payload, correlation);
+                inFlight.put(message.getId(), correlation);
+            } catch (AmqpConnectException e) {
+                log.warn("[Store Outbox] Broker unavailable, message {} stays queued: {}", message.getId(), e.getMessage());
+                failed.add(message.getId());
+            } catch (Exception e) {
+                log.error("[Store Outbox] Failed to send message {} (attempt {}): {}",
+                        message.getId(), message.getAttempts() + 1, e.getMessage());
+                failed.add(message.getId());
+                rejected.add(message.getId());
+            }
+        }
+
+        List<Long> confirmed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (Map.Entry<Long, CorrelationData> entry : inFlight.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = entry.getValue().getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(entry.getKey());
+                } else {
+                    log.warn("[Store Outbox] Broker nacked message {}: {}", entry.getKey(), confirm.getReason());
+                    failed.add(entry.getKey());
+                    rejected.add(entry.getKey());
+                }
+            } catch (TimeoutException e) {
+                log.warn("[Store Outbox] No broker confirm for message {} within {} ms", entry.getKey(), confirmTimeoutMs);
+                failed.add(entry.getKey());
+            } catch (Exception e) {
+                log.warn("[Store Outbox] Confirm for message {} failed: {}", entry.getKey(), e.getMessage());
+                failed.add(entry.getKey());
+            }
+        }
+
+        if (!confirmed.isEmpty()) {
+            outboxRepository.markPublished(confirmed, LocalDateTime.now());
+        }
+        if (!unreadable.isEmpty()) {
+            outboxRepository.markDeadLettered(unreadable, LocalDateTime.now());
+        }
+        if (!rejected.isEmpty()) {
+            outboxRepository.recordFailedAttempt(rejected);
+            int deadLettered = outboxRepository.deadLetterExhausted(rejected, maxAttempts, LocalDateTime.now());
+            if (deadLettered > 0) {
+                log.error("[Store Outbox] Dead-lettered {} messages after {} failed attempts", deadLettered, maxAttempts);
+            }
+        }
+        if (!failed.isEmpty()) {
+            // Left unpublished, retried on a later tick
+            return 0;
+        }
+        log.debug("[Store Outbox] Published {} messages", confirmed.size());
+        return confirmed.size();
+    }
+
+    // Published rows are only kept for troubleshooting
+    @Scheduled(fixedDelayString = "${store.outbox.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgePublished() {
+        int deleted = outboxRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("[Store Outbox] Purged {} published messages", deleted);
+        }
+    }
+}
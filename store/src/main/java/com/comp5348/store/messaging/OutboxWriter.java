@@ -0,0 +1,45 @@
+package com.comp5348.store.messaging;
+
+import com.comp5348.store.model.OutboxMessage;
+import com.comp5348.store.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Records outgoing RabbitMQ messages in the store DB instead of sending them directly.
+// The message becomes visible to OutboxPublisher only if the caller's transaction commits.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxMessageRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    // Joins the caller's transaction, there must be one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String exchange, String routingKey, Object payload) {
+        save(exchange, routingKey, payload);
+    }
+
+    // Commits on its own, for notifications that must survive the caller rolling back
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void enqueueIndependently(String exchange, String routingKey, Object payload) {
+        save(exchange, routingKey, payload);
+    }
+
+    private void save(String exchange, String routingKey, Object payload) {
+        try {
+            OutboxMessage message = new OutboxMessage(exchange, routingKey,
+                    payload.getClass().getName(), objectMapper.writeValueAsString(payload));
+            outboxRepository.save(message);
+            log.debug("[Store Outbox] Queued message {} for {}/{}", message.getId(), exchange, routingKey);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox payload " + payload.getClass().getName(), e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.comp5348.store.messaging;
 
 import com.comp5348.contracts.DeliveryStatus;
+import com.comp5348.contracts.DeliveryStatusBatch;
 import com.comp5348.store.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -8,6 +9,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
+import static com.comp5348.store.config.RabbitMQConfig.STATUS_DELIVERY_BATCH_QUEUE;
 import static com.comp5348.store.config.RabbitMQConfig.STATUS_DELIVERY_QUEUE;
 
 @Component
@@ -23,9 +28,7 @@ public class StatusConsumer {
                 status.getOrderId(), status.getState(), status.getNote());
 
         try {
-            String storeStatus = (status.getState() == DeliveryStatus.State.LOST) 
-                ? "DELIVERY_LOST" 
-                : status.getState().name();
+            String storeStatus = storeStatus(status);
 
             boolean updated = orderService.updateOrderStatus(status.getOrderId(), storeStatus);
             if (updated) {
@@ -37,4 +40,29 @@ public class StatusConsumer {
             log.error("[Store] Failed to update order {}: {}", status.getOrderId(), e.getMessage());
         }
     }
+
+    // One transaction per batch; if it fails (e.g. an order changed concurrently) the batch is
+    // replayed one status at a time, so a single bad order cannot drop the others
+    @RabbitListener(queues = STATUS_DELIVERY_BATCH_QUEUE)
+    public void onDeliveryStatusBatchReceived(DeliveryStatusBatch batch) {
+        List<DeliveryStatus> statuses = batch.getStatuses();
+        log.info("[Store ← DeliveryCo] Received {} delivery statuses", statuses.size());
+
+        List<Map.Entry<Long, String>> updates = statuses.stream()
+                .map(status -> Map.entry(status.getOrderId(), storeStatus(status)))
+                .toList();
+        try {
+            orderService.updateOrderStatuses(updates);
+        } catch (Exception e) {
+            log.warn("[Store] Batch of {} delivery statuses failed ({}), applying them one by one",
+                    statuses.size(), e.getMessage());
+            statuses.forEach(this::onDeliveryStatusReceived);
+        }
+    }
+
+    private static String storeStatus(DeliveryStatus status) {
+        return (status.getState() == DeliveryStatus.State.LOST)
+                ? "DELIVERY_LOST"
+                : status.getState().name();
+    }
 }
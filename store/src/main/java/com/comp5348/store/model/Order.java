@@ -13,7 +13,11 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_id", columnList = "customer_id, id"),
+        @Index(name = "idx_orders_status", columnList = "status, id"),
+        @Index(name = "idx_orders_order_date", columnList = "orderDate")
+})
 public class Order {
 
     @Id
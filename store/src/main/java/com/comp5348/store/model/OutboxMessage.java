@@ -0,0 +1,58 @@
+package com.comp5348.store.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// RabbitMQ message written in the same transaction as the order change that caused it,
+// published later by OutboxPublisher
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_message", indexes = {
+        @Index(name = "idx_outbox_unpublished", columnList = "publishedAt, id")
+})
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    // Class of the payload, so the publisher sends the same JSON and type header as a direct send
+    @Column(nullable = false)
+    private String payloadType;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column
+    private LocalDateTime publishedAt;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Set when the message was given up on (unreadable payload, or rejected too often);
+    // such rows are no longer claimed and stay in the table for inspection
+    @Column
+    private LocalDateTime deadLetteredAt;
+
+    public OutboxMessage(String exchange, String routingKey, String payloadType, String payload) {
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.payloadType = payloadType;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,16 @@
+package com.comp5348.store.repository;
+
+import com.comp5348.store.dto.OrderResponseDTO;
+import com.comp5348.store.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // newest-first page of orders projected straight into DTOs, keyset on id (only ids below afterId);
+    // null filters are ignored
+    List<OrderResponseDTO> findOrderPage(OrderStatus status, Long customerId,
+                                         LocalDateTime from, LocalDateTime to,
+                                         Long afterId, int limit);
+}
@@ -0,0 +1,69 @@
+package com.comp5348.store.repository;
+
+import com.comp5348.store.dto.OrderResponseDTO;
+import com.comp5348.store.model.Customer;
+import com.comp5348.store.model.Order;
+import com.comp5348.store.model.OrderStatus;
+import com.comp5348.store.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order listing as a single joined projection: no entities are managed and no lazy
+ * associations are touched, so memory stays bounded by the page size.
+ */
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderResponseDTO> findOrderPage(OrderStatus status, Long customerId,
+                                                LocalDateTime from, LocalDateTime to,
+                                                Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderResponseDTO> query = cb.createQuery(OrderResponseDTO.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, Customer> customer = order.join("customer");
+        Join<Order, Product> product = order.join("product");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (status != null) {
+            predicates.add(cb.equal(order.get("status"), status));
+        }
+        if (customerId != null) {
+            predicates.add(cb.equal(customer.get("id"), customerId));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("orderDate"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(order.get("orderDate"), to));
+        }
+        if (afterId != null) {
+            predicates.add(cb.lessThan(order.get("id"), afterId));
+        }
+
+        query.select(cb.construct(OrderResponseDTO.class,
+                        order.get("id"),
+                        customer.get("firstName"),
+                        customer.get("lastName"),
+                        product.get("name"),
+                        order.get("quantity"),
+                        order.get("totalAmount"),
+                        order.get("deliveryAddress"),
+                        order.get("status"),
+                        order.get("orderDate")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.comp5348.store.repository;
+
+import com.comp5348.store.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Oldest unpublished messages; rows locked by another store instance are skipped, not waited on
+    @Query(value = "SELECT * FROM outbox_message WHERE published_at IS NULL AND dead_lettered_at IS NULL " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.publishedAt = :publishedAt WHERE m.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1 WHERE m.id IN :ids")
+    int recordFailedAttempt(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.deadLetteredAt = :now WHERE m.id IN :ids")
+    int markDeadLettered(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.deadLetteredAt = :now " +
+            "WHERE m.id IN :ids AND m.attempts >= :maxAttempts AND m.deadLetteredAt IS NULL")
+    int deadLetterExhausted(@Param("ids") Collection<Long> ids, @Param("maxAttempts") int maxAttempts,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,10 +2,13 @@ package com.comp5348.store.repository;
 
 import com.comp5348.store.model.WarehouseStock;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long> {
+public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long>, WarehouseStockRepositoryCustom {
 
     // find all stock entries for a given product
     List<WarehouseStock> findByProductId(Long productId);
@@ -15,4 +18,25 @@ public interface WarehouseStockRepository extends JpaRepository<WarehouseStock,
 
     // find a single stock record for (warehouse, product)
     WarehouseStock findByWarehouseIdAndProductId(Long warehouseId, Long productId);
+
+    // flat stock levels used to rebuild the in-memory counters
+    @Query("SELECT ws.id AS id, w.id AS warehouseId, ws.product.id AS productId, ws.quantity AS quantity, " +
+            "w.location AS location FROM WarehouseStock ws JOIN ws.warehouse w")
+    List<StockLevel> findAllStockLevels();
+
+    // put units back in a single statement, used when an order is cancelled or its payment fails
+    @Modifying
+    @Query("UPDATE WarehouseStock ws SET ws.quantity = ws.quantity + :quantity " +
+            "WHERE ws.warehouse.id = :warehouseId AND ws.product.id = :productId")
+    int restoreStock(@Param("warehouseId") Long warehouseId,
+                     @Param("productId") Long productId,
+                     @Param("quantity") int quantity);
+
+    interface StockLevel {
+        Long getId();
+        Long getWarehouseId();
+        Long getProductId();
+        int getQuantity();
+        String getLocation();
+    }
 }
@@ -0,0 +1,13 @@
+package com.comp5348.store.repository;
+
+import java.util.Map;
+
+public interface WarehouseStockRepositoryCustom {
+
+    // atomically take quantity units of a product across warehouses,
+    // returns warehouseId -> units taken, or an empty map when stock is insufficient
+    Map<Long, Integer> reserveStock(Long productId, int quantity);
+
+    // add signed deltas to stock rows (stockId -> delta) in one JDBC batch
+    void applyStockDeltas(Map<Long, Integer> deltasByStockId);
+}
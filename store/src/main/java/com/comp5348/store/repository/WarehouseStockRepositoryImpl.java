@@ -0,0 +1,119 @@
+package com.comp5348.store.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock deduction without read-modify-write: every decrement is a single guarded UPDATE,
+ * so concurrent orders for the same product can never drive a row below zero.
+ */
+public class WarehouseStockRepositoryImpl implements WarehouseStockRepositoryCustom {
+
+    // Take the whole quantity from one warehouse. Rows locked by concurrent orders are skipped,
+    // so orders for the same product proceed in parallel on different warehouses.
+    private static final String RESERVE_SINGLE_WAREHOUSE = """
+            UPDATE warehouse_stock
+            SET quantity = quantity - :quantity
+            WHERE id = (
+                SELECT id FROM warehouse_stock
+                WHERE product_id = :productId AND quantity >= :quantity
+                ORDER BY quantity DESC, id
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            )
+            AND quantity >= :quantity
+            RETURNING warehouse_id
+            """;
+
+    // Split the quantity across warehouses, largest stock first. All rows of the product are
+    // locked for this statement and nothing is written unless the total covers the order.
+    // Rows are locked in id order, which never changes, so two concurrent splits cannot lock
+    // the same rows in opposite orders and deadlock; the largest-first preference is applied
+    // afterwards, on the locked rows.
+    private static final String RESERVE_ACROSS_WAREHOUSES = """
+            WITH locked AS (
+                SELECT id, warehouse_id, quantity
+                FROM warehouse_stock
+                WHERE product_id = :productId AND quantity > 0
+                ORDER BY id
+                FOR UPDATE
+            ),
+            planned AS (
+                SELECT id,
+                       LEAST(quantity, :quantity - COALESCE(SUM(quantity) OVER (
+                               ORDER BY quantity DESC, id
+                               ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0)) AS taken
+                FROM locked
+            )
+            UPDATE warehouse_stock ws
+            SET quantity = ws.quantity - p.taken
+            FROM planned p
+            WHERE ws.id = p.id
+              AND p.taken > 0
+              AND ws.quantity >= p.taken
+              AND (SELECT SUM(quantity) FROM locked) >= :quantity
+            RETURNING ws.warehouse_id, p.taken
+            """;
+
+    private static final String APPLY_DELTA = "UPDATE warehouse_stock SET quantity = quantity + ? WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Map<Long, Integer> reserveStock(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+
+        List<Object> single = entityManager.createNativeQuery(RESERVE_SINGLE_WAREHOUSE)
+                .setParameter("productId", productId)
+                .setParameter("quantity", quantity)
+                .getResultList();
+        if (!single.isEmpty()) {
+            return Map.of(((Number) single.get(0)).longValue(), quantity);
+        }
+
+        List<Object[]> rows = entityManager.createNativeQuery(RESERVE_ACROSS_WAREHOUSES)
+                .setParameter("productId", productId)
+                .setParameter("quantity", quantity)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Integer> allocation = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            allocation.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        return allocation;
+    }
+
+    @Override
+    @Transactional
+    public void applyStockDeltas(Map<Long, Integer> deltasByStockId) {
+        if (deltasByStockId.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(APPLY_DELTA)) {
+                for (Map.Entry<Long, Integer> entry : deltasByStockId.entrySet()) {
+                    statement.setInt(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
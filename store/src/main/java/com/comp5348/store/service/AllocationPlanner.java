@@ -0,0 +1,31 @@
+package com.comp5348.store.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides which warehouses fill an order. Selected with store.inventory.allocation-strategy
+ * (fewest-warehouses, nearest or balanced) and used by the in-memory stock engine.
+ */
+public interface AllocationPlanner {
+
+    // returns slot -> units to take; the caller has checked that total stock covers quantity
+    Map<Integer, Integer> plan(ProductStockIndex index, int quantity, String deliveryAddress);
+
+    // Greedy split, largest warehouses first: the fewest warehouses that can cover quantity
+    static Map<Integer, Integer> largestFirst(ProductStockIndex index, int quantity) {
+        Map<Integer, Integer> plan = new LinkedHashMap<>();
+        int remaining = quantity;
+        Iterator<Integer> slots = index.slotsByStockDescending();
+        while (remaining > 0 && slots.hasNext()) {
+            int slot = slots.next();
+            int used = Math.min(index.available(slot), remaining);
+            if (used > 0) {
+                plan.put(slot, used);
+                remaining -= used;
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,24 @@
+package com.comp5348.store.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Always draws from the warehouse with the most stock, which keeps levels even
+ * across warehouses while still shipping from one warehouse when possible.
+ */
+@Component
+@ConditionalOnProperty(name = "store.inventory.allocation-strategy", havingValue = "balanced")
+public class BalancedPlanner implements AllocationPlanner {
+
+    @Override
+    public Map<Integer, Integer> plan(ProductStockIndex index, int quantity, String deliveryAddress) {
+        int slot = index.largest();
+        if (slot >= 0 && index.available(slot) >= quantity) {
+            return Map.of(slot, quantity);
+        }
+        return AllocationPlanner.largestFirst(index, quantity);
+    }
+}
@@ -0,0 +1,45 @@
+package com.comp5348.store.service;
+
+import com.comp5348.store.dto.CustomerSnapshot;
+import com.comp5348.store.dto.ProductSnapshot;
+import com.comp5348.store.repository.CustomerRepository;
+import com.comp5348.store.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache for customer and product lookups on the order path.
+ * Size, TTL and stats are configured through spring.cache.caffeine.spec;
+ * hit/miss counts are published as cache.gets metrics.
+ * The store has no write path for products or customers (DataLoader seeds them, registration
+ * only adds ids that were never looked up, and misses are not cached), so nothing needs evicting;
+ * an out-of-band edit shows up once the entry expires.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+
+    public static final String CUSTOMERS = "customers";
+    public static final String PRODUCTS = "products";
+
+    private final CustomerRepository customerRepository;
+    private final ProductRepository productRepository;
+
+    @Cacheable(cacheNames = CUSTOMERS, key = "#customerId", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<CustomerSnapshot> findCustomer(Long customerId) {
+        return customerRepository.findById(customerId).map(CustomerSnapshot::from);
+    }
+
+    @Cacheable(cacheNames = PRODUCTS, key = "#productId", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<ProductSnapshot> findProduct(Long productId) {
+        return productRepository.findById(productId).map(ProductSnapshot::from);
+    }
+}
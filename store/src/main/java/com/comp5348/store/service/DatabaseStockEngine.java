@@ -0,0 +1,31 @@
+package com.comp5348.store.service;
+
+import com.comp5348.store.repository.WarehouseStockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Stock engine that goes straight to warehouse_stock with guarded updates.
+ * Suited to several store instances sharing one database. Warehouses are picked by the SQL
+ * (single warehouse with the most stock, otherwise largest first); the AllocationPlanner is not consulted.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "store.inventory.engine", havingValue = "database")
+public class DatabaseStockEngine implements StockEngine {
+
+    private final WarehouseStockRepository warehouseStockRepository;
+
+    @Override
+    public Map<Long, Integer> reserve(Long productId, int quantity, String deliveryAddress) {
+        return warehouseStockRepository.reserveStock(productId, quantity);
+    }
+
+    @Override
+    public void release(Long productId, Long warehouseId, int quantity) {
+        warehouseStockRepository.restoreStock(warehouseId, productId, quantity);
+    }
+}
@@ -0,0 +1,24 @@
+package com.comp5348.store.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Ships from a single warehouse whenever one can cover the order, picking the smallest
+ * that fits so larger stock stays available for larger orders. Otherwise splits largest-first.
+ */
+@Component
+@ConditionalOnProperty(name = "store.inventory.allocation-strategy", havingValue = "fewest-warehouses", matchIfMissing = true)
+public class FewestWarehousesPlanner implements AllocationPlanner {
+
+    @Override
+    public Map<Integer, Integer> plan(ProductStockIndex index, int quantity, String deliveryAddress) {
+        int slot = index.bestFit(quantity);
+        if (slot >= 0) {
+            return Map.of(slot, quantity);
+        }
+        return AllocationPlanner.largestFirst(index, quantity);
+    }
+}
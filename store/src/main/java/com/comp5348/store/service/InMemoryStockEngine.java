@@ -0,0 +1,299 @@
+package com.comp5348.store.service;
+
+import com.comp5348.store.repository.WarehouseStockRepository;
+import com.comp5348.store.repository.WarehouseStockRepository.StockLevel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process stock counters for hot products.
+ * Orders are admitted or rejected against memory under a per-product stripe lock,
+ * warehouses are chosen by the configured AllocationPlanner, and the resulting deltas are written behind to warehouse_stock in batches.
+ * Counters are rebuilt from the table on startup, so this engine assumes a single store instance.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "store.inventory.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryStockEngine implements StockEngine {
+
+    private static final int STRIPES = 64;
+
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final AllocationPlanner allocationPlanner;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private volatile StockTable table;
+
+    public InMemoryStockEngine(WarehouseStockRepository warehouseStockRepository,
+                               AllocationPlanner allocationPlanner) {
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.allocationPlanner = allocationPlanner;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // Rebuild the counters from warehouse_stock, runs after the DataLoader has seeded the table
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        flush();
+        List<StockLevel> levels = warehouseStockRepository.findAllStockLevels();
+        table = new StockTable(levels);
+        log.info("[Inventory] Loaded {} stock counters into memory", levels.size());
+    }
+
+    @Override
+    public Map<Long, Integer> reserve(Long productId, int quantity, String deliveryAddress) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        StockTable t = requireTable();
+        ProductStockIndex index = t.indexOf(productId);
+        if (index == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Integer> allocation;
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            allocation = take(t, index, quantity, deliveryAddress);
+        } finally {
+            lock.unlock();
+        }
+
+        // Give the units back if the order that reserved them is rolled back
+        if (!allocation.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        allocation.forEach((warehouseId, units) -> apply(productId, warehouseId, units));
+                    }
+                }
+            });
+        }
+        return allocation;
+    }
+
+    @Override
+    public void release(Long productId, Long warehouseId, int quantity) {
+        // Only hand the units back once the cancelling transaction has committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(productId, warehouseId, quantity);
+                }
+            });
+        } else {
+            apply(productId, warehouseId, quantity);
+        }
+    }
+
+    // Write-behind: push accumulated deltas to warehouse_stock in one batch
+    @Scheduled(fixedDelayString = "${store.inventory.flush-interval-ms:200}")
+    public void flush() {
+        StockTable t = table;
+        if (t == null) {
+            return;
+        }
+
+        int[] dirtySlots = new int[t.size()];
+        int[] dirtyDeltas = new int[t.size()];
+        int count = 0;
+        Map<Long, Integer> deltasByStockId = new HashMap<>();
+        for (int slot = 0; slot < t.size(); slot++) {
+            int delta = t.pendingDeltas.getAndSet(slot, 0);
+            if (delta != 0) {
+                dirtySlots[count] = slot;
+                dirtyDeltas[count] = delta;
+                count++;
+                deltasByStockId.put(t.stockIds[slot], delta);
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        try {
+            warehouseStockRepository.applyStockDeltas(deltasByStockId);
+            log.debug("[Inventory] Flushed {} stock deltas", count);
+        } catch (Exception e) {
+            // keep the deltas for the next flush
+            for (int i = 0; i < count; i++) {
+                t.pendingDeltas.addAndGet(dirtySlots[i], dirtyDeltas[i]);
+            }
+            log.error("[Inventory] Failed to flush {} stock deltas: {}", count, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Caller holds the product's stripe lock
+    private Map<Long, Integer> take(StockTable t, ProductStockIndex index, int quantity, String deliveryAddress) {
+        if (index.totalAvailable() < quantity) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Integer> allocation = new LinkedHashMap<>();
+        allocationPlanner.plan(index, quantity, deliveryAddress).forEach((slot, units) -> {
+            adjust(t, slot, -units);
+            allocation.put(t.warehouseIds[slot], units);
+        });
+        return allocation;
+    }
+
+    private void apply(Long productId, Long warehouseId, int quantity) {
+        StockTable t = requireTable();
+        int slot = t.slotOf(productId, warehouseId);
+        if (slot < 0) {
+            log.error("[Inventory] No stock counter for product {} in warehouse {}; {} units not restored",
+                    productId, warehouseId, quantity);
+            return;
+        }
+        ReentrantLock lock = stripeOf(productId);
+        lock.lock();
+        try {
+            adjust(t, slot, quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the product's stripe lock
+    private void adjust(StockTable t, int slot, int delta) {
+        int available = t.quantities.addAndGet(slot, delta);
+        t.pendingDeltas.addAndGet(slot, delta);
+        t.indexes[t.productOfSlot[slot]].update(slot, available);
+    }
+
+    private StockTable requireTable() {
+        StockTable t = table;
+        if (t == null) {
+            throw new IllegalStateException("Inventory is still loading, please retry");
+        }
+        return t;
+    }
+
+    private ReentrantLock stripeOf(long productId) {
+        return stripes[LongIntMap.mix(productId) & (STRIPES - 1)];
+    }
+
+    /**
+     * Immutable layout of the counters; only the quantities and pending deltas change after load.
+     */
+    private static final class StockTable {
+        final long[] stockIds;
+        final long[] warehouseIds;
+        final int[] productOfSlot;
+        final AtomicIntegerArray quantities;
+        final AtomicIntegerArray pendingDeltas;
+        final ProductStockIndex[] indexes;
+        private final LongIntMap slotByKey;
+        private final LongIntMap productIndex;
+
+        StockTable(List<StockLevel> levels) {
+            int n = levels.size();
+            stockIds = new long[n];
+            warehouseIds = new long[n];
+            productOfSlot = new int[n];
+            quantities = new AtomicIntegerArray(n);
+            pendingDeltas = new AtomicIntegerArray(n);
+            slotByKey = new LongIntMap(n);
+
+            Map<Long, Integer> productPositions = new LinkedHashMap<>();
+            List<ProductStockIndex> productIndexes = new ArrayList<>();
+            for (int slot = 0; slot < n; slot++) {
+                StockLevel level = levels.get(slot);
+                stockIds[slot] = level.getId();
+                warehouseIds[slot] = level.getWarehouseId();
+                quantities.set(slot, level.getQuantity());
+                slotByKey.put(key(level.getProductId(), level.getWarehouseId()), slot);
+
+                int position = productPositions.computeIfAbsent(level.getProductId(), id -> {
+                    productIndexes.add(new ProductStockIndex());
+                    return productIndexes.size() - 1;
+                });
+                productOfSlot[slot] = position;
+                productIndexes.get(position).add(slot, level.getLocation(), level.getQuantity());
+            }
+
+            indexes = productIndexes.toArray(new ProductStockIndex[0]);
+            productIndex = new LongIntMap(productPositions.size());
+            productPositions.forEach(productIndex::put);
+        }
+
+        int size() {
+            return stockIds.length;
+        }
+
+        ProductStockIndex indexOf(long productId) {
+            int position = productIndex.get(productId);
+            return position < 0 ? null : indexes[position];
+        }
+
+        int slotOf(long productId, long warehouseId) {
+            return slotByKey.get(key(productId, warehouseId));
+        }
+
+        // ids are database identities, both fit in 32 bits
+        private static long key(long productId, long warehouseId) {
+            return (productId << 32) | (warehouseId & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Open-addressing long -> int map without boxing. Key 0 marks an empty cell,
+     * which is safe because every key is built from positive database ids.
+     */
+    private static final class LongIntMap {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(1, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long key, int value) {
+            int i = mix(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int get(long key) {
+            int i = mix(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
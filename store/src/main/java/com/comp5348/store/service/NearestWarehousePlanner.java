@@ -0,0 +1,30 @@
+package com.comp5348.store.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Prefers a warehouse in the location named by the delivery address (e.g. "Sydney"),
+ * falling back to the fewest-warehouses plan when no local warehouse covers the order.
+ */
+@Component
+@ConditionalOnProperty(name = "store.inventory.allocation-strategy", havingValue = "nearest")
+public class NearestWarehousePlanner implements AllocationPlanner {
+
+    @Override
+    public Map<Integer, Integer> plan(ProductStockIndex index, int quantity, String deliveryAddress) {
+        for (String location : index.locationsIn(deliveryAddress)) {
+            int slot = index.bestFitIn(location, quantity);
+            if (slot >= 0) {
+                return Map.of(slot, quantity);
+            }
+        }
+        int slot = index.bestFit(quantity);
+        if (slot >= 0) {
+            return Map.of(slot, quantity);
+        }
+        return AllocationPlanner.largestFirst(index, quantity);
+    }
+}
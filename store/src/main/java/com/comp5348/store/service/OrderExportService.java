@@ -0,0 +1,143 @@
+package com.comp5348.store.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams every order, joined with its customer and product, straight from a forward-only
+ * cursor to an output stream. Heap use is bounded by the fetch size, not by the table size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String EXPORT_QUERY = """
+            SELECT o.id, o.order_date, o.status, o.quantity, o.total_amount, o.delivery_address,
+                   o.payment_transaction_id, c.id AS customer_id, c.first_name, c.last_name, c.email,
+                   p.id AS product_id, p.name AS product_name
+            FROM orders o
+            JOIN customer c ON c.id = o.customer_id
+            JOIN product p ON p.id = o.product_id
+            ORDER BY o.id
+            """;
+
+    private static final String[] COLUMNS = {
+            "orderId", "orderDate", "status", "quantity", "totalAmount", "deliveryAddress",
+            "paymentTransactionId", "customerId", "customerName", "customerEmail", "productId", "productName"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void export(Format format, OutputStream out) {
+        log.info("[Store] Streaming order export as {}", format);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            JsonGenerator generator = objectMapper.createGenerator(writer);
+            generator.setRootValueSeparator(null);
+            RowCallbackHandler handler = format == Format.CSV ? csvRows(writer) : ndjsonRows(generator);
+
+            // PostgreSQL only streams with a fetch size inside a transaction (autocommit off)
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement(EXPORT_QUERY,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, handler);
+                return null;
+            });
+
+            generator.flush();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RowCallbackHandler ndjsonRows(JsonGenerator generator) {
+        return rs -> {
+            Object[] values = values(rs);
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    generator.writeObjectField(COLUMNS[i], values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                // client went away, abort the cursor
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private RowCallbackHandler csvRows(Writer writer) {
+        write(writer, String.join(",", COLUMNS) + "\n");
+        return rs -> {
+            Object[] values = values(rs);
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) line.append(',');
+                line.append(csv(values[i]));
+            }
+            write(writer, line.append('\n').toString());
+        };
+    }
+
+    private Object[] values(ResultSet rs) throws SQLException {
+        Timestamp orderDate = rs.getTimestamp("order_date");
+        return new Object[] {
+                rs.getLong("id"),
+                orderDate != null ? orderDate.toLocalDateTime().toString() : null,
+                rs.getString("status"),
+                rs.getInt("quantity"),
+                rs.getDouble("total_amount"),
+                rs.getString("delivery_address"),
+                rs.getString("payment_transaction_id"),
+                rs.getLong("customer_id"),
+                rs.getString("first_name") + " " + rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getLong("product_id"),
+                rs.getString("product_name")
+        };
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private static void write(Writer writer, String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            // client went away, abort the cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+}
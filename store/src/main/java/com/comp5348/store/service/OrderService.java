@@ -4,86 +4,171 @@ import com.comp5348.contracts.DeliveryRequest;
 import com.comp5348.contracts.EmailRequest;
 import com.comp5348.contracts.PaymentRequest;
 import com.comp5348.contracts.PaymentResponse;
+import com.comp5348.store.config.BoundedExecutor;
+import com.comp5348.store.dto.CustomerSnapshot;
+import com.comp5348.store.dto.OrderPageDTO;
 import com.comp5348.store.dto.OrderResponseDTO;
+import com.comp5348.store.dto.ProductSnapshot;
 import com.comp5348.store.messaging.*;
 import com.comp5348.store.model.*;
 import com.comp5348.store.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.comp5348.store.config.ExecutorConfig.STORE_IO_EXECUTOR;
+import static com.comp5348.store.config.RabbitMQConfig.CANCEL_EXCHANGE;
+import static com.comp5348.store.config.RabbitMQConfig.RK_ORDER_CANCELLED;
 
 @Service
-public class OrderService {
+public class OrderService implements DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
-    private final RabbitTemplate rabbitTemplate;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int CONTINUATION_MAX_ATTEMPTS = 10;
+    private static final long CONTINUATION_RETRY_DELAY_MS = 100;
 
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
-    private final WarehouseStockRepository warehouseStockRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final StockEngine stockEngine;
     private final OrderAllocationRepository orderAllocationRepository;
+    private final CatalogService catalogService;
 
     private final BankMessageProducer bankProducer;
     private final DeliveryMessageProducer deliveryProducer;
     private final EmailMessageProducer emailProducer;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final BoundedExecutor storeIoExecutor;
+    private final ScheduledExecutorService continuationRetries = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("store-continuation-retry").daemon().factory());
 
     public OrderService(CustomerRepository customerRepository,
                         ProductRepository productRepository,
                         OrderRepository orderRepository,
-                        WarehouseStockRepository warehouseStockRepository,
+                        WarehouseRepository warehouseRepository,
+                        StockEngine stockEngine,
                         OrderAllocationRepository orderAllocationRepository,
+                        CatalogService catalogService,
                         BankMessageProducer bankProducer,
                         DeliveryMessageProducer deliveryProducer,
                         EmailMessageProducer emailProducer,
-                        RabbitTemplate rabbitTemplate) {
+                        OutboxWriter outboxWriter,
+                        TransactionTemplate transactionTemplate,
+                        @Qualifier(STORE_IO_EXECUTOR) BoundedExecutor storeIoExecutor) {
         this.customerRepository = customerRepository;
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
-        this.warehouseStockRepository = warehouseStockRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.stockEngine = stockEngine;
         this.orderAllocationRepository = orderAllocationRepository;
+        this.catalogService = catalogService;
         this.bankProducer = bankProducer;
         this.deliveryProducer = deliveryProducer;
         this.emailProducer = emailProducer;
-        this.rabbitTemplate = rabbitTemplate;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.storeIoExecutor = storeIoExecutor;
     }
 
-    // Place order function
-    @Transactional
+    // Place order function, blocks until the bank has answered
     public OrderResponseDTO placeOrder(Long customerId, Long productId, int quantity) {
+        return placeOrderAsync(customerId, productId, quantity).join();
+    }
+
+    // Place order without holding a thread or a DB connection while the bank processes the charge.
+    // The PENDING order is committed first, the rest runs when the PaymentResponse arrives.
+    public CompletableFuture<OrderResponseDTO> placeOrderAsync(Long customerId, Long productId, int quantity) {
         logger.info("Received order request: customerId={}, productId={}, quantity={}", customerId, productId, quantity);
 
-        Customer customer = customerRepository.findById(customerId)
+        PendingOrder pending = transactionTemplate.execute(status -> createPendingOrder(customerId, productId, quantity));
+        if (pending.rejection() != null) {
+            return CompletableFuture.completedFuture(pending.rejection());
+        }
+
+        // Request payment via RabbitMQ (async RPC); the DB continuation runs on the store I/O
+        // executor rather than on the reply listener thread, which must keep matching replies
+        CompletableFuture<OrderResponseDTO> result = new CompletableFuture<>();
+        bankProducer.sendPaymentAsync(pending.payment())
+                .thenAccept(paymentRes -> completeOrderLater(pending.orderId(), paymentRes, result));
+        return result;
+    }
+
+    private void completeOrderLater(Long orderId, PaymentResponse paymentRes,
+                                    CompletableFuture<OrderResponseDTO> result) {
+        handOff(() -> {
+            try {
+                result.complete(transactionTemplate.execute(status -> completeOrder(orderId, paymentRes)));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, "order " + orderId, 1);
+    }
+
+    // Hands a reply continuation to the I/O executor. When it is full the hand-off is retried with a
+    // growing delay from the retry timer, never run on the submitting (reply listener) thread.
+    // A continuation is never dropped: once the retries run out it runs on the retry thread itself,
+    // since the bank may already have charged for the order it completes.
+    private void handOff(Runnable task, String what, int attempt) {
+        try {
+            storeIoExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (attempt >= CONTINUATION_MAX_ATTEMPTS) {
+                logger.warn("Executor still full after {} attempts, running continuation of {} on the retry thread",
+                        attempt, what);
+                continuationRetries.execute(task);
+                return;
+            }
+            logger.warn("Executor full, retrying continuation of {} (attempt {})", what, attempt);
+            continuationRetries.schedule(() -> handOff(task, what, attempt + 1),
+                    CONTINUATION_RETRY_DELAY_MS * attempt, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private PendingOrder createPendingOrder(Long customerId, Long productId, int quantity) {
+        CustomerSnapshot customer = catalogService.findCustomer(customerId)
                 .orElseThrow(() -> new RuntimeException("Customer not found"));
-        Product product = productRepository.findById(productId)
+        ProductSnapshot product = catalogService.findProduct(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        List<WarehouseStock> stockList = warehouseStockRepository.findByProductId(productId);
-        int totalAvailable = stockList.stream().mapToInt(WarehouseStock::getQuantity).sum();
-        if (totalAvailable < quantity) {
-            return failGracefully(customer, product, "Insufficient stock (" + totalAvailable + " available)");
+        // Reserve stock up front, so a paid order can never oversell
+        Map<Long, Integer> reserved = stockEngine.reserve(productId, quantity, customer.getAddress());
+        if (reserved.isEmpty()) {
+            return PendingOrder.rejected(failGracefully(customer, product, "Insufficient stock"));
         }
 
         double totalAmount = product.getPrice() * quantity;
 
         // Create order
         Order order = new Order();
-        order.setCustomer(customer);
-        order.setProduct(product);
+        order.setCustomer(customerRepository.getReferenceById(customerId));
+        order.setProduct(productRepository.getReferenceById(productId));
         order.setQuantity(quantity);
         order.setTotalAmount(totalAmount);
         order.setDeliveryAddress(customer.getAddress());
         order.setStatus(OrderStatus.PENDING);
+        for (Map.Entry<Long, Integer> entry : reserved.entrySet()) {
+            Warehouse warehouse = warehouseRepository.getReferenceById(entry.getKey());
+            order.getAllocations().add(new OrderAllocation(order, warehouse, entry.getValue()));
+        }
         orderRepository.save(order);
 
-        // Request payment via RabbitMQ (RPC)
         PaymentRequest paymentReq = new PaymentRequest(
                 order.getId(),
                 1L,
@@ -91,9 +176,18 @@ public class OrderService {
                 totalAmount,
                 PaymentRequest.Type.CHARGE
         );
-        PaymentResponse paymentRes = bankProducer.sendPayment(paymentReq);
+        return new PendingOrder(order.getId(), paymentReq, null);
+    }
+
+    // Continuation of placeOrder, runs in its own transaction once the bank has replied
+    private OrderResponseDTO completeOrder(Long orderId, PaymentResponse paymentRes) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        CustomerSnapshot customer = customerOf(order);
 
         if (paymentRes == null || !paymentRes.isSuccess()) {
+            // Release the stock reserved for this order
+            restoreStock(order);
             order.setStatus(OrderStatus.FAILED);
             orderRepository.save(order);
             emailProducer.sendEmail(new EmailRequest(
@@ -104,57 +198,26 @@ public class OrderService {
             ));
             return buildDto(order);
         }
-
-        // Deduct stock and create allocations
-        Map<Warehouse, Integer> allocationMap = new LinkedHashMap<>();
-        int remaining = quantity;
-        for (WarehouseStock ws : stockList) {
-            if (remaining == 0) break;
-            int available = ws.getQuantity();
-            int used = Math.min(available, remaining);
-            if (used > 0) {
-                ws.setQuantity(available - used);
-                warehouseStockRepository.save(ws);
-                allocationMap.put(ws.getWarehouse(), used);
-                remaining -= used;
-            }
-        }
-
-        for (Map.Entry<Warehouse, Integer> entry : allocationMap.entrySet()) {
-            OrderAllocation allocation = new OrderAllocation(order, entry.getKey(), entry.getValue());
-            order.getAllocations().add(allocation);
-        }
-
+        order.setPaymentTransactionId(paymentRes.getTransactionId());
         order.setStatus(OrderStatus.PROCESSING);
         orderRepository.save(order);
 
-        String deliveryLocation = (allocationMap.size() == 1)
-                ? allocationMap.keySet().iterator().next().getLocation()
+        List<OrderAllocation> allocations = order.getAllocations();
+        String deliveryLocation = (allocations.size() == 1)
+                ? allocations.get(0).getWarehouse().getLocation()
                 : "Mixed Warehouses";
-
-        // Async delivery + email after commit
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        deliveryProducer.sendDeliveryRequest(new DeliveryRequest(
-                                order.getId(),
-                                deliveryLocation,
-                                order.getDeliveryAddress()
-                        ));
-                        emailProducer.sendEmail(new EmailRequest(
-                                customer.getEmail(),
-                                "Order Processing",
-                                "Your order is being prepared for shipment. You’ll receive updates soon.",
-                                order.getId()
-                        ));
-                    } catch (Exception e) {
-                        logger.error("Failed to send async RabbitMQ messages: {}", e.getMessage());
-                    }
-                });
-            }
-        });
+        // Delivery + email go through the outbox, committed together with the PROCESSING status
+        deliveryProducer.sendDeliveryRequest(new DeliveryRequest(
+                order.getId(),
+                deliveryLocation,
+                order.getDeliveryAddress()
+        ));
+        emailProducer.sendEmail(new EmailRequest(
+                customer.getEmail(),
+                "Order Processing",
+                "Your order is being prepared for shipment. You’ll receive updates soon.",
+                order.getId()
+        ));
 
         return buildDto(order);
     }
@@ -169,30 +232,26 @@ public class OrderService {
         if (order.getStatus() != OrderStatus.PROCESSING) {
             throw new RuntimeException("Order cannot be cancelled after delivery request sent");
         }
+        CustomerSnapshot customer = customerOf(order);
+        ProductSnapshot product = productOf(order);
 
         // Restore stock based on allocations
-        for (OrderAllocation allocation : order.getAllocations()) {
-            WarehouseStock stock = warehouseStockRepository
-                    .findByWarehouseIdAndProductId(allocation.getWarehouse().getId(), order.getProduct().getId());
-            if (stock != null) {
-                stock.setQuantity(stock.getQuantity() + allocation.getQuantity());
-                warehouseStockRepository.save(stock);
-            }
-        }
+        restoreStock(order);
 
         // refund via RabbitMQ (RPC)
         PaymentRequest refundReq = new PaymentRequest(
                 order.getId(),
                 1L,
-                String.valueOf(order.getCustomer().getBankAccountId()),
+                String.valueOf(customer.getBankAccountId()),
                 order.getTotalAmount(),
                 PaymentRequest.Type.REFUND
         );
         PaymentResponse refundRes = bankProducer.sendPayment(refundReq);
 
         if (refundRes == null || !refundRes.isSuccess()) {
-            emailProducer.sendEmail(new EmailRequest(
-                    order.getCustomer().getEmail(),
+            // The exception below rolls this transaction back, so the email is queued on its own
+            emailProducer.sendEmailIndependently(new EmailRequest(
+                    customer.getEmail(),
                     "Refund Failed",
                     "Your refund for order #" + order.getId() + " could not be processed.",
                     order.getId()
@@ -205,14 +264,14 @@ public class OrderService {
         orderRepository.save(order);
 
         emailProducer.sendEmail(new EmailRequest(
-                order.getCustomer().getEmail(),
+                customer.getEmail(),
                 "Order Cancelled",
-                "Your order #" + order.getId() + " for " + order.getProduct().getName() + " has been cancelled and refunded successfully.",
+                "Your order #" + order.getId() + " for " + product.getName() + " has been cancelled and refunded successfully.",
                 order.getId()
         ));
 
-        rabbitTemplate.convertAndSend("cancel.exchange", "order.cancelled", order.getId());
-        logger.info("[Store → DeliveryCo] Published cancellation event for order {}", order.getId());
+        outboxWriter.enqueue(CANCEL_EXCHANGE, RK_ORDER_CANCELLED, order.getId());
+        logger.info("[Store → DeliveryCo] Queued cancellation event for order {}", order.getId());
 
         return buildDto(order);
     }
@@ -224,18 +283,54 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        if (!applyStatus(order, OrderStatus.valueOf(status.toUpperCase()))) {
+            return false;
+        }
+        orderRepository.save(order);
+        return true;
+    }
+
+    // Status updates of a whole delivery batch: one load for all orders, and the changed rows
+    // go out in one JDBC batch at commit (hibernate.jdbc.batch_size). Updates are applied in
+    // the given order, so a later status for the same order wins. Refunds for lost deliveries
+    // are sent after the commit, so the transaction never waits on the bank and a rolled-back
+    // batch has sent none.
+    // Returns the number of updates applied; unknown and finalized orders are skipped.
+    @Transactional
+    public int updateOrderStatuses(List<Map.Entry<Long, String>> updates) {
+        Set<Long> orderIds = new HashSet<>();
+        updates.forEach(update -> orderIds.add(update.getKey()));
+        Map<Long, Order> orders = new HashMap<>();
+        orderRepository.findAllById(orderIds).forEach(order -> orders.put(order.getId(), order));
+
+        List<Order> changed = new ArrayList<>();
+        for (Map.Entry<Long, String> update : updates) {
+            Order order = orders.get(update.getKey());
+            if (order == null) {
+                logger.warn("Ignoring update for unknown order {}", update.getKey());
+                continue;
+            }
+            if (applyStatus(order, OrderStatus.valueOf(update.getValue().toUpperCase()))) {
+                changed.add(order);
+            }
+        }
+        orderRepository.saveAll(changed);
+        logger.info("Applied {} of {} delivery status updates", changed.size(), updates.size());
+        return changed.size();
+    }
+
+    // Sets the new status and queues its notifications; false if the order is already final
+    private boolean applyStatus(Order order, OrderStatus newStatus) {
         if (EnumSet.of(OrderStatus.CANCELLED, OrderStatus.DELIVERED, OrderStatus.DELIVERY_LOST, OrderStatus.FAILED)
                 .contains(order.getStatus())) {
-            logger.warn("Ignoring update for order {} — already finalized", orderId);
+            logger.warn("Ignoring update for order {} — already finalized", order.getId());
             return false;
         }
 
-        OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
         order.setStatus(newStatus);
-        orderRepository.save(order);
 
-        Customer customer = order.getCustomer();
-        Product product = order.getProduct();
+        CustomerSnapshot customer = customerOf(order);
+        ProductSnapshot product = productOf(order);
 
         switch (newStatus) {
             case DELIVERED -> emailProducer.sendEmail(new EmailRequest(
@@ -245,7 +340,8 @@ public class OrderService {
                     order.getId()
             ));
             case DELIVERY_LOST -> {
-                // For lost deliveries, issue a refund but do not restore stock
+                // For lost deliveries, issue a refund but do not restore stock.
+                // Sent once the status commits, so a batch of updates never waits on the bank
                 PaymentRequest refundReq = new PaymentRequest(
                         order.getId(),
                         1L,
@@ -253,23 +349,7 @@ public class OrderService {
                         order.getTotalAmount(),
                         PaymentRequest.Type.REFUND
                 );
-                PaymentResponse refundRes = bankProducer.sendPayment(refundReq);
-
-                if (refundRes == null || !refundRes.isSuccess()) {
-                    emailProducer.sendEmail(new EmailRequest(
-                            customer.getEmail(),
-                            "Refund Failed",
-                            "Your refund for lost order #" + order.getId() + " could not be processed.",
-                            order.getId()
-                    ));
-                } else {
-                    emailProducer.sendEmail(new EmailRequest(
-                            customer.getEmail(),
-                            "Order Lost and Refunded",
-                            "Unfortunately, your order #" + order.getId() + " for " + product.getName() + " was lost during delivery. A full refund has been issued.",
-                            order.getId()
-                    ));
-                }
+                refundAfterCommit(refundReq, customer, product);
             }
             case FAILED -> emailProducer.sendEmail(new EmailRequest(
                     customer.getEmail(),
@@ -283,12 +363,44 @@ public class OrderService {
         return true;
     }
 
+    private void refundAfterCommit(PaymentRequest refundReq, CustomerSnapshot customer, ProductSnapshot product) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bankProducer.sendPaymentAsync(refundReq).thenAccept(refundRes -> handOff(
+                        () -> emailRefundOutcome(refundReq.getOrderId(), refundRes, customer, product),
+                        "refund of order " + refundReq.getOrderId(), 1));
+            }
+        });
+    }
+
+    // Runs outside the status transaction, so each email commits on its own
+    private void emailRefundOutcome(Long orderId, PaymentResponse refundRes,
+                                    CustomerSnapshot customer, ProductSnapshot product) {
+        if (refundRes == null || !refundRes.isSuccess()) {
+            logger.warn("Refund for lost order {} failed", orderId);
+            emailProducer.sendEmailIndependently(new EmailRequest(
+                    customer.getEmail(),
+                    "Refund Failed",
+                    "Your refund for lost order #" + orderId + " could not be processed.",
+                    orderId
+            ));
+        } else {
+            emailProducer.sendEmailIndependently(new EmailRequest(
+                    customer.getEmail(),
+                    "Order Lost and Refunded",
+                    "Unfortunately, your order #" + orderId + " for " + product.getName() + " was lost during delivery. A full refund has been issued.",
+                    orderId
+            ));
+        }
+    }
+
     // helper function
     public OrderResponseDTO buildDto(Order order) {
         OrderResponseDTO dto = new OrderResponseDTO();
         dto.setOrderId(order.getId());
-        dto.setCustomerName(order.getCustomer().getFirstName() + " " + order.getCustomer().getLastName());
-        dto.setProductName(order.getProduct().getName());
+        dto.setCustomerName(customerOf(order).getFullName());
+        dto.setProductName(productOf(order).getName());
         dto.setQuantity(order.getQuantity());
         dto.setTotalAmount(order.getTotalAmount());
         dto.setDeliveryAddress(order.getDeliveryAddress());
@@ -297,10 +409,28 @@ public class OrderService {
         return dto;
     }
 
-    private OrderResponseDTO failGracefully(Customer customer, Product product, String reason) {
+    private void restoreStock(Order order) {
+        Long productId = order.getProduct().getId();
+        for (OrderAllocation allocation : order.getAllocations()) {
+            stockEngine.release(productId, allocation.getWarehouse().getId(), allocation.getQuantity());
+        }
+    }
+
+    // Cached lookups by id; reading the id of a lazy association does not load it
+    private CustomerSnapshot customerOf(Order order) {
+        return catalogService.findCustomer(order.getCustomer().getId())
+                .orElseThrow(() -> new RuntimeException("Customer not found"));
+    }
+
+    private ProductSnapshot productOf(Order order) {
+        return catalogService.findProduct(order.getProduct().getId())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+    }
+
+    private OrderResponseDTO failGracefully(CustomerSnapshot customer, ProductSnapshot product, String reason) {
         emailProducer.sendEmail(new EmailRequest(customer.getEmail(), "Order Failed", reason, null));
         OrderResponseDTO dto = new OrderResponseDTO();
-        dto.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
+        dto.setCustomerName(customer.getFullName());
         dto.setProductName(product.getName());
         dto.setQuantity(0);
         dto.setTotalAmount(0);
@@ -309,22 +439,37 @@ public class OrderService {
         return dto;
     }
 
-    private Warehouse findWarehouseWithStock(Long productId, int quantity) {
-        List<WarehouseStock> stockList = warehouseStockRepository.findByProductId(productId);
-        for (WarehouseStock stock : stockList) {
-            if (stock.getQuantity() >= quantity) return stock.getWarehouse();
-        }
-        return null;
-    }
-
     @Transactional(readOnly = true)
     public OrderResponseDTO getLatestOrder(Long customerId) {
         Order latest = orderRepository.findTopByCustomerIdOrderByOrderDateDesc(customerId)
                 .orElseThrow(() -> new RuntimeException("No orders found for this customer"));
-        return new OrderResponseDTO(latest);
+        return buildDto(latest);
     }
 
-    public List<Order> getAllOrders() { return orderRepository.findAll(); }
+    // Keyset page of orders, newest first; fetches one extra row to know whether another page exists
+    @Transactional(readOnly = true)
+    public OrderPageDTO getOrders(OrderStatus status, Long customerId, LocalDateTime from, LocalDateTime to,
+                                  Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<OrderResponseDTO> rows = orderRepository.findOrderPage(status, customerId, from, to, cursor, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new OrderPageDTO(rows, null);
+        }
+        List<OrderResponseDTO> page = rows.subList(0, pageSize);
+        return new OrderPageDTO(new ArrayList<>(page), page.get(pageSize - 1).getOrderId());
+    }
 
     public Order getOrderById(Long id) { return orderRepository.findById(id).orElse(null); }
+
+    // Outcome of the first placeOrder transaction: either a PENDING order awaiting payment or a rejection
+    private record PendingOrder(Long orderId, PaymentRequest payment, OrderResponseDTO rejection) {
+        static PendingOrder rejected(OrderResponseDTO rejection) {
+            return new PendingOrder(null, null, rejection);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        continuationRetries.shutdownNow();
+    }
 }
@@ -0,0 +1,114 @@
+package com.comp5348.store.service;
+
+import java.util.*;
+
+/**
+ * Warehouses holding one product, kept sorted by available stock so planners can
+ * answer "smallest warehouse that covers n units" or "largest warehouse" in O(log n).
+ * Entries are packed as (available << 32 | slot); slots are the engine's counter positions.
+ * Not thread-safe: the owning engine mutates and reads it under the product's stripe lock.
+ */
+public final class ProductStockIndex {
+
+    private final TreeSet<Long> byStock = new TreeSet<>();
+    private final Map<String, TreeSet<Long>> byLocation = new HashMap<>();
+    private final Map<Integer, String> locationOfSlot = new HashMap<>();
+    private final Map<Integer, Integer> availableOfSlot = new HashMap<>();
+    private long totalAvailable;
+
+    void add(int slot, String location, int available) {
+        String key = normalize(location);
+        locationOfSlot.put(slot, key);
+        availableOfSlot.put(slot, available);
+        byStock.add(pack(available, slot));
+        byLocation.computeIfAbsent(key, k -> new TreeSet<>()).add(pack(available, slot));
+        totalAvailable += available;
+    }
+
+    void update(int slot, int available) {
+        int previous = availableOfSlot.put(slot, available);
+        TreeSet<Long> local = byLocation.get(locationOfSlot.get(slot));
+        byStock.remove(pack(previous, slot));
+        local.remove(pack(previous, slot));
+        byStock.add(pack(available, slot));
+        local.add(pack(available, slot));
+        totalAvailable += available - previous;
+    }
+
+    public long totalAvailable() {
+        return totalAvailable;
+    }
+
+    public int available(int slot) {
+        return availableOfSlot.getOrDefault(slot, 0);
+    }
+
+    // slot with the least stock that still covers quantity, or -1
+    public int bestFit(int quantity) {
+        return bestFit(byStock, quantity);
+    }
+
+    // same as bestFit, restricted to warehouses in one location
+    public int bestFitIn(String location, int quantity) {
+        TreeSet<Long> local = byLocation.get(location);
+        return local == null ? -1 : bestFit(local, quantity);
+    }
+
+    // slot with the most stock, or -1
+    public int largest() {
+        return byStock.isEmpty() ? -1 : slotOf(byStock.last());
+    }
+
+    // slots from most to least stock, walked lazily so a split only touches the warehouses it uses
+    public Iterator<Integer> slotsByStockDescending() {
+        Iterator<Long> entries = byStock.descendingIterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return slotOf(entries.next());
+            }
+        };
+    }
+
+    // Locations named in a free-text address, matched on its comma-separated parts and words
+    public List<String> locationsIn(String address) {
+        if (address == null || address.isBlank()) {
+            return List.of();
+        }
+        List<String> matches = new ArrayList<>();
+        for (String part : address.split(",")) {
+            String segment = normalize(part);
+            if (byLocation.containsKey(segment) && !matches.contains(segment)) {
+                matches.add(segment);
+            }
+            for (String word : segment.split("\\s+")) {
+                if (byLocation.containsKey(word) && !matches.contains(word)) {
+                    matches.add(word);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static int bestFit(TreeSet<Long> entries, int quantity) {
+        Long entry = entries.ceiling(pack(quantity, 0));
+        return entry == null ? -1 : slotOf(entry);
+    }
+
+    private static long pack(int available, int slot) {
+        return ((long) available << 32) | slot;
+    }
+
+    private static int slotOf(long entry) {
+        return (int) entry;
+    }
+
+    private static String normalize(String location) {
+        return location == null ? "" : location.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,17 @@
+package com.comp5348.store.service;
+
+import java.util.Map;
+
+/**
+ * Reserves and releases warehouse stock for orders.
+ * Selected with store.inventory.engine (memory or database).
+ */
+public interface StockEngine {
+
+    // take quantity units of a product for delivery to an address,
+    // returns warehouseId -> units taken (empty when out of stock)
+    Map<Long, Integer> reserve(Long productId, int quantity, String deliveryAddress);
+
+    // put units back into a warehouse, e.g. after cancellation or a failed payment
+    void release(Long productId, Long warehouseId, int quantity);
+}